@@ -0,0 +1,112 @@
+package com.idlefish.flutterboost;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 大块二进制数据（图片、protobuf 等），可以放在 FlutterBoostRouteOptions.arguments 中
+ * <p>
+ * 序列化时只写入一个进程内的 id，不拷贝数据，所以经过 Intent/Bundle 传给容器时没有额外开销，
+ * 反序列化时通过 id 找回原来的 ByteBuffer。数据只在当前进程内有效，进程重建后 buffer() 返回 null：
+ * id 和进程启动时随机生成的 nonce 一起写入，新进程的 id 从头开始，靠 nonce 区分，不会找到别的 buffer。
+ * 发给 flutter 时 BoostMessageCodec 直接从 ByteBuffer 写入消息，flutter 侧收到 Uint8List。
+ * <p>
+ * wrap 之后 buffer 一直被强引用，直到调用 release()。作为页面参数时，容器真正销毁（不是配置变化重建）时
+ * 自动 release；没有交给容器的 BinaryPayload 需要调用方自己 release，
+ * 例如自定义的 FlutterBoostDelegate 没有打开容器，或者打开容器失败时。
+ * <p>
+ * 事件请使用 FlutterBoost.sendBinaryEventToFlutter(String, ByteBuffer)，直接传递 direct ByteBuffer，完全不拷贝。
+ */
+public final class BinaryPayload implements Serializable {
+    private static final long serialVersionUID = 1L;
+    // 进程内的 id -> buffer，release 之前一直持有，Intent 反序列化出的 BinaryPayload 从这里找回 buffer
+    private static final Map<Long, ByteBuffer> buffers = new HashMap<>();
+    private static long nextId = 0;
+    // 每个进程不同，区分上一个进程序列化的 id
+    private static final long PROCESS_NONCE;
+
+    static {
+        PROCESS_NONCE = new SecureRandom().nextLong();
+    }
+
+    private final long nonce;
+    private final long id;
+    private transient ByteBuffer buffer;
+
+    private BinaryPayload(long nonce, long id, ByteBuffer buffer) {
+        this.nonce = nonce;
+        this.id = id;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Wraps the remaining bytes of buffer without copying them.
+     */
+    public static BinaryPayload wrap(ByteBuffer buffer) {
+        synchronized (buffers) {
+            long id = nextId++;
+            buffers.put(id, buffer);
+            return new BinaryPayload(PROCESS_NONCE, id, buffer);
+        }
+    }
+
+    /**
+     * Drops the process-wide reference to the buffer. Copies deserialized afterwards,
+     * e.g. when a container is restored from its Intent, get a null buffer.
+     */
+    public void release() {
+        if (nonce != PROCESS_NONCE) {
+            return;
+        }
+        synchronized (buffers) {
+            buffers.remove(id);
+        }
+    }
+
+    /**
+     * Releases every BinaryPayload in arguments, including those in nested maps and lists.
+     */
+    public static void release(Map<?, ?> arguments) {
+        if (arguments != null) {
+            releaseAll(arguments.values());
+        }
+    }
+
+    private static void releaseAll(Collection<?> values) {
+        for (Object value : values) {
+            if (value instanceof BinaryPayload) {
+                ((BinaryPayload) value).release();
+            } else if (value instanceof Map) {
+                releaseAll(((Map<?, ?>) value).values());
+            } else if (value instanceof Collection) {
+                releaseAll((Collection<?>) value);
+            }
+        }
+    }
+
+    /**
+     * Gets the wrapped buffer, or null if it was lost with the process that created it.
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    private Object readResolve() {
+        if (nonce != PROCESS_NONCE) {
+            // 上一个进程写入的 id，buffer 已经随进程丢失
+            return new BinaryPayload(nonce, id, null);
+        }
+        synchronized (buffers) {
+            return new BinaryPayload(nonce, id, buffers.get(id));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryPayload{id=" + id + ", size=" + (buffer != null ? buffer.remaining() : -1) + "}";
+    }
+}
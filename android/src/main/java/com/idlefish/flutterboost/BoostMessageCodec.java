@@ -0,0 +1,121 @@
+package com.idlefish.flutterboost;
+
+import com.idlefish.flutterboost.Messages.CommonParams;
+import com.idlefish.flutterboost.Messages.StackInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+
+/**
+ * CommonParams 和 StackInfo 的专用编码
+ * <p>
+ * 按固定的字段顺序直接写入各字段的值，不经过以字段名为 key 的 HashMap，也不在消息里带字段名。
+ * 解码时对 pageName 和 uniqueId 做 intern，同一个页面的多条消息共用一个 String。
+ * 参数中的 ByteBuffer 和 BinaryPayload 直接从 buffer 写入消息，flutter 侧收到 Uint8List。
+ * flutter 侧（boost_message_codec.dart 中的 BoostMessageCodec）和 iOS 侧（FBBoostMessageCodec）使用相同的格式。
+ * Messages.java 是 pigeon 生成的，重新生成后要把其中的 codec 换回这个类。
+ */
+@SuppressWarnings("unchecked")
+public class BoostMessageCodec extends StandardMessageCodec {
+    public static final BoostMessageCodec INSTANCE = new BoostMessageCodec();
+    private static final byte COMMON_PARAMS = (byte) 128;
+    private static final byte STACK_INFO = (byte) 129;
+    // 和 StandardMessageCodec 的 BYTE_ARRAY 一致
+    private static final byte BYTE_ARRAY = 8;
+    // 从 direct ByteBuffer 分段写入消息时用的缓冲区大小
+    private static final int COPY_CHUNK_SIZE = 8192;
+    // intern 表的大小上限，超过后清空重新开始
+    private static final int MAX_INTERNED = 256;
+    private final Map<String, String> interned = new HashMap<>();
+
+    private BoostMessageCodec() {
+    }
+
+    @Override
+    protected void writeValue(ByteArrayOutputStream stream, Object value) {
+        if (value instanceof BinaryPayload) {
+            value = ((BinaryPayload) value).buffer();
+        }
+        if (value instanceof ByteBuffer) {
+            writeByteBuffer(stream, (ByteBuffer) value);
+        } else if (value instanceof CommonParams) {
+            CommonParams params = (CommonParams) value;
+            stream.write(COMMON_PARAMS);
+            writeValue(stream, params.getPageName());
+            writeValue(stream, params.getUniqueId());
+            writeValue(stream, params.getArguments());
+            writeValue(stream, params.getOpaque());
+            writeValue(stream, params.getKey());
+        } else if (value instanceof StackInfo) {
+            StackInfo info = (StackInfo) value;
+            stream.write(STACK_INFO);
+            writeValue(stream, info.getContainers());
+            writeValue(stream, info.getRoutes());
+        } else {
+            super.writeValue(stream, value);
+        }
+    }
+
+    @Override
+    protected Object readValueOfType(byte type, ByteBuffer buffer) {
+        switch (type) {
+            case COMMON_PARAMS: {
+                CommonParams params = new CommonParams();
+                params.setPageName(intern((String) readValue(buffer)));
+                params.setUniqueId(intern((String) readValue(buffer)));
+                params.setArguments((Map<Object, Object>) readValue(buffer));
+                params.setOpaque((Boolean) readValue(buffer));
+                params.setKey((String) readValue(buffer));
+                return params;
+            }
+            case STACK_INFO: {
+                StackInfo info = new StackInfo();
+                info.setContainers((List<Object>) readValue(buffer));
+                info.setRoutes((Map<Object, Object>) readValue(buffer));
+                return info;
+            }
+            default:
+                return super.readValueOfType(type, buffer);
+        }
+    }
+
+    /**
+     * 按 Uint8List 的格式写入 buffer 剩余的字节，不先转成 byte[]，也不改变 buffer 的 position
+     */
+    private static void writeByteBuffer(ByteArrayOutputStream stream, ByteBuffer buffer) {
+        int size = buffer.remaining();
+        stream.write(BYTE_ARRAY);
+        writeSize(stream, size);
+        if (buffer.hasArray()) {
+            stream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), size);
+            return;
+        }
+        ByteBuffer source = buffer.duplicate();
+        byte[] chunk = new byte[Math.min(size, COPY_CHUNK_SIZE)];
+        while (source.hasRemaining()) {
+            int length = Math.min(source.remaining(), chunk.length);
+            source.get(chunk, 0, length);
+            stream.write(chunk, 0, length);
+        }
+    }
+
+    private synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = interned.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (interned.size() >= MAX_INTERNED) {
+            interned.clear();
+        }
+        interned.put(value, value);
+        return value;
+    }
+}
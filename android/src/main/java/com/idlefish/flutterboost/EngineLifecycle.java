@@ -0,0 +1,128 @@
+package com.idlefish.flutterboost;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.flutter.embedding.engine.systemchannels.LifecycleChannel;
+
+/**
+ * 一个引擎的生命周期状态机，所有容器的生命周期事件都交给它，由它发 LifecycleChannel 消息
+ * <p>
+ * 一次页面切换中容器会连续上报多次事件，例如 detach 时 inactive、紧接着 onPause 又 resumed。
+ * 事件只改变目标状态，当前消息处理完后目标状态和上一次发给 flutter 的状态不同才发一条消息，
+ * 中间状态和重复的 resumed 都不会发出去。
+ * 只能在主线程使用。
+ */
+public class EngineLifecycle {
+    public enum State {
+        RESUMED,
+        INACTIVE,
+        PAUSED,
+        DETACHED
+    }
+
+    private final LifecycleChannel lifecycleChannel;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable dispatchRunnable = this::dispatch;
+    private State targetState;//容器上报的最新状态
+    private State sentState;//最后一次发给 flutter 的状态，还没发过时为 null
+    private boolean dispatchScheduled = false;
+    private long eventCount;
+    // "RESUMED->INACTIVE" 这样的 key，第一次发送的 from 是 "NONE"
+    private final Map<String, Long> transitionCounts = new LinkedHashMap<>();
+
+    /*package*/ EngineLifecycle(LifecycleChannel lifecycleChannel) {
+        this.lifecycleChannel = lifecycleChannel;
+    }
+
+    public void onResumed() {
+        moveTo(State.RESUMED);
+    }
+
+    public void onInactive() {
+        moveTo(State.INACTIVE);
+    }
+
+    public void onPaused() {
+        moveTo(State.PAUSED);
+    }
+
+    public void onDetached() {
+        moveTo(State.DETACHED);
+    }
+
+    private void moveTo(State state) {
+        eventCount++;
+        targetState = state;
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            handler.post(dispatchRunnable);
+        }
+    }
+
+    private void dispatch() {
+        dispatchScheduled = false;
+        if (targetState == sentState) {
+            return;
+        }
+        String transition = (sentState != null ? sentState.name() : "NONE") + "->" + targetState.name();
+        Long count = transitionCounts.get(transition);
+        transitionCounts.put(transition, count != null ? count + 1 : 1);
+        sentState = targetState;
+        switch (sentState) {
+            case RESUMED:
+                lifecycleChannel.appIsResumed();
+                break;
+            case INACTIVE:
+                lifecycleChannel.appIsInactive();
+                break;
+            case PAUSED:
+                lifecycleChannel.appIsPaused();
+                break;
+            case DETACHED:
+                lifecycleChannel.appIsDetached();
+                break;
+        }
+    }
+
+    /*package*/ void cancel() {
+        handler.removeCallbacks(dispatchRunnable);
+        dispatchScheduled = false;
+    }
+
+    /**
+     * Gets the state last sent to flutter, or null if nothing was sent yet.
+     */
+    public State getState() {
+        return sentState;
+    }
+
+    /**
+     * Gets the number of lifecycle events reported by the containers.
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Gets the number of reported events that did not result in a message to flutter.
+     */
+    public long getSuppressedCount() {
+        long sent = 0;
+        for (long count : transitionCounts.values()) {
+            sent += count;
+        }
+        return eventCount - sent;
+    }
+
+    /**
+     * Gets how many times each transition was sent to flutter, keyed like "RESUMED->INACTIVE".
+     */
+    public Map<String, Long> getTransitionCounts() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(transitionCounts));
+    }
+}
@@ -0,0 +1,61 @@
+package com.idlefish.flutterboost;
+
+/**
+ * 发给 flutter 的事件的投递策略，通过 FlutterBoost.setEventDeliveryPolicy 按 key 设置
+ * <ul>
+ * <li>unbuffered: 每次 sendEventToFlutter 立即发送，默认策略</li>
+ * <li>latest: 一帧内只发送最后一次的 args</li>
+ * <li>accumulate: 一帧内的 args 合并成列表发送，flutter 侧收到 {"events": [args...]}，
+ * 超过 maxEvents 时丢弃最早的</li>
+ * </ul>
+ * 缓存的事件在下一个 vsync（Choreographer 帧回调）时发送。
+ */
+public final class EventDeliveryPolicy {
+    public static final String EVENTS = "events";
+
+    /*package*/ static final int MODE_UNBUFFERED = 0;
+    /*package*/ static final int MODE_LATEST = 1;
+    /*package*/ static final int MODE_ACCUMULATE = 2;
+
+    private static final EventDeliveryPolicy UNBUFFERED = new EventDeliveryPolicy(MODE_UNBUFFERED, 0);
+    private static final EventDeliveryPolicy LATEST = new EventDeliveryPolicy(MODE_LATEST, 1);
+
+    private final int mode;
+    private final int maxEvents;
+
+    private EventDeliveryPolicy(int mode, int maxEvents) {
+        this.mode = mode;
+        this.maxEvents = maxEvents;
+    }
+
+    // Sends every event immediately.
+    public static EventDeliveryPolicy unbuffered() {
+        return UNBUFFERED;
+    }
+
+    // Sends only the last event of each frame.
+    public static EventDeliveryPolicy latest() {
+        return LATEST;
+    }
+
+    // Sends the events of each frame as one list, keeping at most the last maxEvents.
+    public static EventDeliveryPolicy accumulate(int maxEvents) {
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException("maxEvents must be positive: " + maxEvents);
+        }
+        return new EventDeliveryPolicy(MODE_ACCUMULATE, maxEvents);
+    }
+
+    /*package*/ int mode() {
+        return mode;
+    }
+
+    /*package*/ int maxEvents() {
+        return maxEvents;
+    }
+
+    @Override
+    public String toString() {
+        return "mode:" + mode + ", maxEvents:" + maxEvents;
+    }
+}
@@ -0,0 +1,20 @@
+package com.idlefish.flutterboost;
+
+/**
+ * native 侧 EventListener 在哪个线程回调
+ */
+public enum EventDispatchMode {
+    /**
+     * 在主线程同步回调，默认方式
+     */
+    MAIN,
+    /**
+     * 在共享的后台线程池（CPU 核数减一个线程）中回调，同一个 listener 的多个事件可能并发。
+     * 二进制事件的 payload 会先拷贝一份再交给 listener
+     */
+    BACKGROUND,
+    /**
+     * 在共享线程池上为该 listener 建立的串行队列中按顺序回调
+     */
+    SERIAL
+}
@@ -0,0 +1,19 @@
+package com.idlefish.flutterboost;
+
+import java.util.Map;
+
+/**
+ * 处理 flutter 侧通过 BoostChannel.request 发来的请求，在主线程回调
+ */
+public interface EventRequestHandler {
+    void onRequest(String key, Map<Object, Object> args, Responder responder);
+
+    /**
+     * 回复请求，可以在任意线程调用，只有第一次调用有效
+     */
+    interface Responder {
+        void success(Map<Object, Object> result);
+
+        void error(String error);
+    }
+}
@@ -0,0 +1,16 @@
+package com.idlefish.flutterboost;
+
+import java.util.Map;
+
+/**
+ * FlutterBoost.requestFromFlutter 的结果，在主线程回调，两个方法只会回调其中一个，且只回调一次
+ */
+public interface EventResponseCallback {
+    String ERROR_TIMEOUT = "timeout";
+    String ERROR_NO_HANDLER = "no_handler";
+    String ERROR_ENGINE_GONE = "engine_gone";
+
+    void onResponse(Map<Object, Object> result);
+
+    void onError(String error);
+}
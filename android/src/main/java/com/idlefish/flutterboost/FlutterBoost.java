@@ -2,17 +2,26 @@ package com.idlefish.flutterboost;
 
 import android.app.Activity;
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 
 import com.idlefish.flutterboost.containers.FlutterContainerManager;
 import com.idlefish.flutterboost.containers.FlutterViewContainer;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
+import io.flutter.FlutterInjector;
 import io.flutter.embedding.engine.FlutterEngine;
 import io.flutter.embedding.engine.FlutterEngineCache;
 import io.flutter.embedding.engine.dart.DartExecutor;
+import io.flutter.embedding.engine.loader.FlutterLoader;
 import io.flutter.view.FlutterMain;
 
 /**
@@ -22,14 +31,45 @@ public class FlutterBoost {
     public static final String ENGINE_ID = "flutter_boost_default_engine";
     public static final String APP_LIFECYCLE_CHANGED_KEY = "app_lifecycle_changed_key";
     public static final String LIFECYCLE_STATE = "lifecycleState";
+    public static final String APP_READY_KEY = "app_ready_key";
+    public static final String PREWARM_ROUTES_KEY = "prewarm_routes_key";
+    public static final String PREWARM_DONE_KEY = "prewarm_done_key";
+    public static final String PREWARM_ROUTES = "routes";
+    public static final String PREWARM_TIME_BUDGET = "budget";
+    public static final String CONTAINER_TRANSITION_KEY = "container_transition_key";
+    public static final String TRANSITION_STEPS = "steps";
+    public static final String BINARY_EVENT_KEY = "binary_event_key";
+    public static final String BINARY_EVENT_CHANNEL = "flutter_boost/binary_event";
+    public static final String BINARY_EVENT_NAME = "key";
+    public static final String BINARY_PAYLOAD = "payload";
+    public static final String EVENT_REQUEST_KEY = "event_request_key";
+    public static final String EVENT_RESPONSE_KEY = "event_response_key";
+    public static final String STREAM_SUBSCRIBE_KEY = "stream_subscribe_key";
+    public static final String STREAM_UNSUBSCRIBE_KEY = "stream_unsubscribe_key";
+    public static final String STREAM_BATCH_KEY = "stream_batch_key";
     public static final int FLUTTER_APP_STATE_RESUMED = 0;
     public static final int FLUTTER_APP_STATE_PAUSED = 2;
 
     private Activity topActivity = null;
-    private FlutterBoostPlugin plugin;
+    private FlutterBoostDelegate delegate;
+    private FlutterBoostSetupOptions setupOptions;
+    private FlutterBoostEnginePool enginePool;
+    private FlutterBoostRoutePrewarmer routePrewarmer;
+    private final StartupMetrics startupMetrics = new StartupMetrics();
+    private final MessageMetrics messageMetrics = new MessageMetrics();
+    private final FlutterBoostEventCoalescer eventCoalescer = new FlutterBoostEventCoalescer(this::broadcastEventToFlutter);
+    private final Map<String, FlutterBoostPlugin> plugins = new HashMap<>();
+    private final FlutterBoostEventRegistry eventRegistry = new FlutterBoostEventRegistry();
+    private final FlutterBoostEventRequests eventRequests = new FlutterBoostEventRequests();
+    private final FlutterBoostStreams streams = new FlutterBoostStreams();
     private boolean isBackForegroundEventOverridden = false;
     private boolean isAppInBackground = false;
-
+    private volatile boolean isEngineReady = false;
+    // 异步初始化时，引擎就绪之前的 open/close/sendEventToFlutter 等调用先缓存在这里，只在主线程访问
+    private final LinkedList<Runnable> pendingActions = new LinkedList<>();
+    // 引擎就绪之前最后一次前后台切换，true 为进入后台，就绪后补发给 flutter
+    private Boolean pendingBackForegroundEvent = null;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private FlutterBoost() {
     }
@@ -67,36 +107,136 @@ public class FlutterBoost {
      * @param options flutter boost 配置
      */
     public void setup(Application application, FlutterBoostDelegate delegate, Callback callback, FlutterBoostSetupOptions options) {
+        startupMetrics.onSetupStart();
         if (options == null) {
             options = FlutterBoostSetupOptions.createDefault();
         }
         isBackForegroundEventOverridden = options.shouldOverrideBackForegroundEvent();
+        this.delegate = delegate;
+        this.setupOptions = options;
+        enginePool = new FlutterBoostEnginePool(application, options);
+        routePrewarmer = new FlutterBoostRoutePrewarmer(application);
+
+        // 先注册回调，这样 Callback.onStart 时 StartupMetrics 已经完整；引擎就绪前回调里不会使用引擎
+        startupMetrics.beginPhase(StartupMetrics.PHASE_LIFECYCLE_REGISTRATION);
+        //3. 注册 acitivity 生命周期回掉
+        setupActivityLifecycleCallback(application, isBackForegroundEventOverridden);
+
+        //4. 内存紧张时回收空闲引擎
+        setupTrimMemoryCallback(application);
+        startupMetrics.endPhase();
 
+        if (options.asyncSetup()) {
+            setupAsync(application, delegate, callback, options);
+        } else {
+            setupEngine(application, delegate, callback, options);
+        }
+    }
+
+    /**
+     * 异步初始化：FlutterLoader 在后台线程完成初始化，等主线程空闲时再创建引擎，
+     * 避免阻塞 Application.onCreate
+     */
+    private void setupAsync(final Application application, final FlutterBoostDelegate delegate,
+                            final Callback callback, final FlutterBoostSetupOptions options) {
+        FlutterLoader loader = FlutterInjector.instance().flutterLoader();
+        loader.startInitialization(application);
+        loader.ensureInitializationCompleteAsync(application, options.shellArgs(),
+                new Handler(Looper.getMainLooper()), () -> {
+                    Looper.myQueue().addIdleHandler(() -> {
+                        setupEngine(application, delegate, callback, options);
+                        return false;
+                    });
+                });
+    }
+
+    private void setupEngine(Application application, FlutterBoostDelegate delegate, Callback callback, FlutterBoostSetupOptions options) {
         // 1. 初始化 FlutterEngine
         FlutterEngine engine = getEngine();
-        if (engine == null) {//没有获取到就创建一个 并缓存到 FlutterEngineCache 中
-            engine = new FlutterEngine(application, options.shellArgs());
+        if (engine == null) {//没有获取到就从引擎池创建一个 并缓存到 FlutterEngineCache 中
             //这里缓存 id 为 ENGINE_ID 的 FlutterEngin,后面会在 FlutterBoostActivity or FlutterBoostFragment中通过
             //id 找到这个 FlutterEngin 达到FlutterEngin 复用的效果
-            FlutterEngineCache.getInstance().put(ENGINE_ID, engine);
+            engine = enginePool.obtain(ENGINE_ID, startupMetrics);
+        } else {
+            enginePool.put(ENGINE_ID, engine);
         }
 
         //如果dart代码还没有开始执行，就指定入口 并开始执行
         if (!engine.getDartExecutor().isExecutingDart()) {
             //设置初始 路由
+            startupMetrics.beginPhase(StartupMetrics.PHASE_SET_INITIAL_ROUTE);
             engine.getNavigationChannel().setInitialRoute(options.initialRoute());
+            startupMetrics.endPhase();
             // 开始执行dart的入口文件 （默认为 main.dart）
+            startupMetrics.beginPhase(StartupMetrics.PHASE_EXECUTE_DART_ENTRYPOINT);
             engine.getDartExecutor().executeDartEntrypoint(new DartExecutor.DartEntrypoint(
                     FlutterMain.findAppBundlePath(), options.dartEntrypoint()));
+            startupMetrics.endPhase();
         }
-        // FlutterEngine 初始化完成后，并 开始执行dart入口文件后 回调onStart 方法
-        if (callback != null) callback.onStart(engine);
 
         //2. 给 FlutterBoostPlugin 设置  FlutterBoostDelegate
+        startupMetrics.beginPhase(StartupMetrics.PHASE_PLUGIN_LOOKUP);
+        // flutter 侧准备好之前发出的消息缓存在插件中，收到 app_ready 后由插件发出
         getPlugin().setDelegate(delegate);
+        startupMetrics.endPhase();
 
-        //3. 注册 acitivity 生命周期回掉
-        setupActivityLifecycleCallback(application, isBackForegroundEventOverridden);
+        isEngineReady = true;
+        startupMetrics.onEngineReady();
+
+        // FlutterEngine 初始化完成后，并 开始执行dart入口文件后 回调onStart 方法
+        if (callback != null) callback.onStart(engine);
+
+        if (pendingBackForegroundEvent != null) {
+            boolean background = pendingBackForegroundEvent;
+            pendingBackForegroundEvent = null;
+            notifyBackForeground(background);
+        }
+        runPendingActions();
+    }
+
+    /**
+     * 引擎就绪之前的调用缓存到 pendingActions，其它线程的调用先切到主线程，再重新判断引擎是否就绪
+     */
+    private void addPendingAction(Runnable action) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(action);
+            return;
+        }
+        pendingActions.add(action);
+    }
+
+    private void notifyBackForeground(boolean background) {
+        for (String engineId : engineIds()) {
+            if (background) {
+                getPlugin(engineId).onBackground();
+            } else {
+                getPlugin(engineId).onForeground();
+            }
+        }
+    }
+
+    private void runPendingActions() {
+        while (!pendingActions.isEmpty()) {
+            pendingActions.removeFirst().run();
+        }
+    }
+
+    /**
+     * Gets the timings of the phases of setup(), complete once {@link Callback#onStart} has been invoked.
+     *
+     * @return the StartupMetrics
+     */
+    public StartupMetrics getStartupMetrics() {
+        return startupMetrics;
+    }
+
+    /**
+     * Whether the engine has been created and the plugin is ready for use.
+     *
+     * @return true once {@link Callback#onStart} has been invoked
+     */
+    public boolean isEngineReady() {
+        return isEngineReady;
     }
 
     /**
@@ -107,12 +247,33 @@ public class FlutterBoost {
      * @return the FlutterBoostPlugin.
      */
     public FlutterBoostPlugin getPlugin() {
+        return getPlugin(ENGINE_ID);
+    }
+
+    /**
+     * Gets the FlutterBoostPlugin attached to the engine with engineId.
+     *
+     * @param engineId the id of the engine
+     * @return the FlutterBoostPlugin.
+     */
+    public FlutterBoostPlugin getPlugin(String engineId) {
+        if (engineId == null) {
+            engineId = ENGINE_ID;
+        }
+        FlutterBoostPlugin plugin = plugins.get(engineId);
         if (plugin == null) {
-            FlutterEngine engine = getEngine();
+            FlutterEngine engine = getEngine(engineId);
+            if (engine == null && isEngineReady && enginePool.isReclaimed(engineId)) {
+                // 引擎被回收后，再次使用时重建；不认识的 engineId 不会创建新引擎
+                engine = enginePool.obtain(engineId);
+            }
             if (engine == null) {
                 throw new RuntimeException("FlutterBoost might *not* have been initialized yet!!!");
             }
             plugin = FlutterBoostUtils.getPlugin(engine);
+            plugin.setEngineId(engineId);
+            plugin.setDelegate(delegate);
+            plugins.put(engineId, plugin);
         }
         return plugin;
     }
@@ -123,7 +284,80 @@ public class FlutterBoost {
      * @return the FlutterEngine
      */
     public FlutterEngine getEngine() {
-        return FlutterEngineCache.getInstance().get(ENGINE_ID);
+        return getEngine(ENGINE_ID);
+    }
+
+    /**
+     * Gets the FlutterEngine with engineId.
+     *
+     * @param engineId the id of the engine
+     * @return the FlutterEngine, or null if it has not been created
+     */
+    public FlutterEngine getEngine(String engineId) {
+        return FlutterEngineCache.getInstance().get(engineId != null ? engineId : ENGINE_ID);
+    }
+
+    /**
+     * Gets the FlutterEngine with engineId, spawning it from the engine group
+     * if it does not exist yet. Spawned engines share the snapshot memory of
+     * the default engine and run the same dart entrypoint.
+     *
+     * @param engineId the id of the engine
+     * @return the FlutterEngine
+     */
+    public FlutterEngine obtainEngine(String engineId) {
+        if (enginePool == null) {
+            throw new RuntimeException("FlutterBoost might *not* have been initialized yet!!!");
+        }
+        return enginePool.obtain(engineId != null ? engineId : ENGINE_ID);
+    }
+
+    private List<String> engineIds() {
+        return enginePool.engineIds();
+    }
+
+    /**
+     * Gets the options passed to setup, or null before setup.
+     */
+    public FlutterBoostSetupOptions getSetupOptions() {
+        return setupOptions;
+    }
+
+    /**
+     * Gets the usage-driven route prewarmer, which also reports prewarm hit/miss counters.
+     *
+     * @return the FlutterBoostRoutePrewarmer
+     */
+    public FlutterBoostRoutePrewarmer getRoutePrewarmer() {
+        return routePrewarmer;
+    }
+
+    /**
+     * Gets the message counts, sizes and latencies per channel and per event key,
+     * recorded only when {@link FlutterBoostSetupOptions.Builder#messageMetrics} is enabled.
+     *
+     * @return the MessageMetrics
+     */
+    public MessageMetrics getMessageMetrics() {
+        return messageMetrics;
+    }
+
+    /*package*/ FlutterBoostEnginePool getEnginePool() {
+        return enginePool;
+    }
+
+    /*package*/ void onEngineReclaimed(String engineId) {
+        plugins.remove(engineId);
+        eventRequests.onEngineDestroyed(engineId);
+        streams.onEngineDestroyed(engineId);
+    }
+
+    /*package*/ FlutterBoostEventRequests getEventRequests() {
+        return eventRequests;
+    }
+
+    /*package*/ FlutterBoostStreams getStreams() {
+        return streams;
     }
 
     /**
@@ -146,11 +380,17 @@ public class FlutterBoost {
             throw new RuntimeException("Oops! You should set override enable first by FlutterBoostSetupOptions.");
         }
 
-        if (background) {
-            getPlugin().onBackground();
-        } else {
-            getPlugin().onForeground();
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> dispatchBackForegroundEvent(background));
+            return;
+        }
+        if (!isEngineReady) {
+            setAppIsInBackground(background);
+            pendingBackForegroundEvent = background;
+            return;
         }
+
+        notifyBackForeground(background);
         setAppIsInBackground(background);
     }
 
@@ -188,7 +428,7 @@ public class FlutterBoost {
                 .pageName(name)
                 .arguments(arguments)
                 .build();
-        this.getPlugin().getDelegate().pushFlutterRoute(options);
+        open(options);
     }
 
     /**
@@ -197,7 +437,13 @@ public class FlutterBoost {
      * @param options FlutterBoostRouteOptions object
      */
     public void open(FlutterBoostRouteOptions options) {
-        this.getPlugin().getDelegate().pushFlutterRoute(options);
+        if (!isEngineReady) {
+            addPendingAction(() -> open(options));
+            return;
+        }
+        routePrewarmer.recordOpen(options.pageName(), options.arguments());
+        obtainEngine(options.engineId());
+        this.getPlugin(options.engineId()).getDelegate().pushFlutterRoute(options);
     }
 
     /**
@@ -206,19 +452,49 @@ public class FlutterBoost {
      * @param uniqueId The uniqueId of the Flutter page
      */
     public void close(String uniqueId) {
+        if (!isEngineReady) {
+            addPendingAction(() -> close(uniqueId));
+            return;
+        }
+        // 没有 native 容器的可能是容器内部的 flutter 页面，交给默认引擎处理
+        FlutterViewContainer container = FlutterContainerManager.instance().findContainerById(uniqueId);
         Messages.CommonParams params = new Messages.CommonParams();
         params.setUniqueId(uniqueId);
-        this.getPlugin().popRoute(params);
+        this.getPlugin(container != null ? container.getCachedEngineId() : ENGINE_ID).popRoute(params);
     }
 
     /**
-     * Add a event listener
+     * Add a event listener, may be called from any thread.
+     * A key ending with ".*" listens to all keys under the prefix, e.g. "cart.*" matches "cart.add",
+     * and "*" matches every key.
      *
      * @param listener
      * @return ListenerRemover, you can use this to remove this listener
      */
     public ListenerRemover addEventListener(String key, EventListener listener) {
-        return this.plugin.addEventListener(key, listener);
+        return addEventListener(key, listener, EventDispatchMode.MAIN);
+    }
+
+    /**
+     * Add a event listener which is called on the thread chosen by mode,
+     * so slow listeners do not hold up the routing messages on the main thread
+     *
+     * @param listener
+     * @param mode     where the listener is called
+     * @return ListenerRemover, you can use this to remove this listener
+     */
+    public ListenerRemover addEventListener(String key, EventListener listener, EventDispatchMode mode) {
+        assert (key != null && listener != null);
+        return eventRegistry.add(key, FlutterBoostEventDispatcher.wrap(listener, mode));
+    }
+
+    /**
+     * 分发 flutter 侧发来的事件，所有引擎共用一份 listener
+     */
+    /*package*/ void dispatchEventToNative(String key, Map<Object, Object> args) {
+        for (EventListener listener : eventRegistry.match(key)) {
+            listener.onEvent(key, args);
+        }
     }
 
     /**
@@ -228,18 +504,169 @@ public class FlutterBoost {
      * @param args the arguments of this event
      */
     public void sendEventToFlutter(String key, Map<Object, Object> args) {
-        Messages.CommonParams params = new Messages.CommonParams();
-        params.setKey(key);
-        params.setArguments(args);
-        this.getPlugin().getChannel().sendEventToFlutter(params, reply -> {
+        if (!isEngineReady) {
+            addPendingAction(() -> sendEventToFlutter(key, args));
+            return;
+        }
+        if (eventCoalescer.offer(key, args)) {
+            return;
+        }
+        broadcastEventToFlutter(key, args);
+    }
 
-        });
+    private void broadcastEventToFlutter(String key, Map<Object, Object> args) {
+        for (String engineId : engineIds()) {
+            this.getPlugin(engineId).sendEventToFlutter(key, args);
+        }
+    }
+
+    /**
+     * Sets how the events of key sent by {@link #sendEventToFlutter} are delivered.
+     * Buffered events are sent once per vsync. Must be called on the main thread.
+     *
+     * @param key    the key of the events
+     * @param policy the policy, null means {@link EventDeliveryPolicy#unbuffered()}
+     */
+    public void setEventDeliveryPolicy(String key, EventDeliveryPolicy policy) {
+        eventCoalescer.setPolicy(key, policy);
+    }
+
+    /**
+     * Send a binary event to flutter without copying the payload.
+     * <p>
+     * The remaining bytes of a direct ByteBuffer are handed to the engine as is,
+     * a heap ByteBuffer is copied once into a direct one. The flutter side listener of
+     * key receives arguments {"payload": ByteData}.
+     *
+     * @param key     the key of this event
+     * @param payload the bytes of this event
+     */
+    public void sendBinaryEventToFlutter(String key, ByteBuffer payload) {
+        if (!isEngineReady) {
+            addPendingAction(() -> sendBinaryEventToFlutter(key, payload));
+            return;
+        }
+        ByteBuffer direct = payload;
+        if (!payload.isDirect()) {
+            direct = ByteBuffer.allocateDirect(payload.remaining());
+            direct.put(payload.duplicate());
+            direct.flip();
+        }
+        for (String engineId : engineIds()) {
+            this.getPlugin(engineId).sendBinaryEventToFlutter(key, direct);
+        }
+    }
+
+    /**
+     * Send a request to the flutter side handler of key registered by BoostChannel.addRequestHandler,
+     * and get its response. May be called from any thread, calls from other threads are posted to the main thread.
+     * <p>
+     * Exactly one of the callback methods is invoked on the main thread, unless the request is cancelled.
+     * Requests sent before the engine is ready are queued, the timeout starts once it is sent.
+     *
+     * @param engineId      the engine whose handler answers, null means the default engine
+     * @param key           the key of this request
+     * @param args          the arguments of this request
+     * @param timeoutMillis fails with {@link EventResponseCallback#ERROR_TIMEOUT} after this time, 0 means never
+     * @param callback      receives the response
+     * @return RequestCanceller, cancels the request and drops its response
+     */
+    public RequestCanceller requestFromFlutter(String engineId, String key, Map<Object, Object> args,
+                                               long timeoutMillis, EventResponseCallback callback) {
+        assert (key != null && callback != null);
+        if (Looper.myLooper() != Looper.getMainLooper() || !isEngineReady) {
+            // 等待中的请求只在主线程访问，cancelled 和 canceller 也只在主线程读写
+            final RequestCanceller[] canceller = new RequestCanceller[1];
+            final boolean[] cancelled = {false};
+            addPendingAction(() -> {
+                if (!cancelled[0]) {
+                    canceller[0] = requestFromFlutter(engineId, key, args, timeoutMillis, callback);
+                }
+            });
+            return () -> {
+                Runnable cancel = () -> {
+                    cancelled[0] = true;
+                    if (canceller[0] != null) {
+                        canceller[0].cancel();
+                    }
+                };
+                if (Looper.myLooper() != Looper.getMainLooper()) {
+                    mainHandler.post(cancel);
+                } else {
+                    cancel.run();
+                }
+            };
+        }
+        return eventRequests.request(getPlugin(engineId), key, args, timeoutMillis, callback);
+    }
+
+    /**
+     * Send a request to the flutter side handler of key on the default engine.
+     *
+     * @see #requestFromFlutter(String, String, Map, long, EventResponseCallback)
+     */
+    public RequestCanceller requestFromFlutter(String key, Map<Object, Object> args,
+                                               long timeoutMillis, EventResponseCallback callback) {
+        return requestFromFlutter(null, key, args, timeoutMillis, callback);
+    }
+
+    /**
+     * Handle the requests of key sent by BoostChannel.request on the flutter side,
+     * a later handler of the same key replaces the former one.
+     *
+     * @param key     the key of the requests
+     * @param handler called on the main thread for each request
+     * @return ListenerRemover, you can use this to remove this handler
+     */
+    public ListenerRemover addRequestHandler(String key, EventRequestHandler handler) {
+        assert (key != null && handler != null);
+        return eventRequests.addRequestHandler(key, handler);
+    }
+
+    /**
+     * Open a stream of continuous values to flutter, e.g. playback position or sensor data.
+     * <p>
+     * Values are written into a ring buffer preallocated with capacity slots and sent in one batch
+     * per vsync to the flutter side subscriptions made by BoostChannel.subscribeStream. Subscriptions
+     * of hidden containers are paused, and the latest capacity values are sent once they show again.
+     * Opening a name that is already open returns the existing stream.
+     *
+     * @param name     the name of the stream
+     * @param capacity how many unsent values are kept
+     * @return the FlutterBoostStream to write into
+     */
+    public FlutterBoostStream openStream(String name, int capacity) {
+        assert (name != null);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        return streams.open(name, capacity);
     }
 
     private void setupActivityLifecycleCallback(Application application, boolean isBackForegroundEventOverridden) {
         application.registerActivityLifecycleCallbacks(new BoostActivityLifecycle(isBackForegroundEventOverridden));
     }
 
+    private void setupTrimMemoryCallback(Application application) {
+        application.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (enginePool != null) {
+                    enginePool.onTrimMemory(level);
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                onTrimMemory(TRIM_MEMORY_COMPLETE);
+            }
+        });
+    }
+
     public boolean isAppInBackground() {
         return isAppInBackground;
     }
@@ -249,10 +676,11 @@ public class FlutterBoost {
     }
 
     public void changeFlutterAppLifecycle(int state) {
-        assert (state == FLUTTER_APP_STATE_PAUSED || state == FLUTTER_APP_STATE_RESUMED);
-        Map arguments = new HashMap();
-        arguments.put(LIFECYCLE_STATE, state);
-        sendEventToFlutter(APP_LIFECYCLE_CHANGED_KEY, arguments);
+        if (!isEngineReady) {
+            addPendingAction(() -> changeFlutterAppLifecycle(state));
+            return;
+        }
+        getPlugin().changeFlutterAppLifecycle(state);
     }
 
     private class BoostActivityLifecycle implements Application.ActivityLifecycleCallbacks {
@@ -271,7 +699,11 @@ public class FlutterBoost {
             }
 
             FlutterBoost.instance().setAppIsInBackground(false);
-            FlutterBoost.instance().getPlugin().onForeground();
+            if (!isEngineReady) {
+                pendingBackForegroundEvent = false;
+                return;
+            }
+            notifyBackForeground(false);
         }
 
         //app处于后台的状态同步给 flutter侧
@@ -281,7 +713,11 @@ public class FlutterBoost {
             }
 
             FlutterBoost.instance().setAppIsInBackground(true);
-            FlutterBoost.instance().getPlugin().onBackground();
+            if (!isEngineReady) {
+                pendingBackForegroundEvent = true;
+                return;
+            }
+            notifyBackForeground(true);
         }
 
         @Override
@@ -311,6 +747,7 @@ public class FlutterBoost {
             isActivityChangingConfigurations = activity.isChangingConfigurations();
             if (--activityReferences == 0 && !isActivityChangingConfigurations) {
                 // App enters background
+                routePrewarmer.persist();
                 dispatchBackgroundEvent();
             }
 
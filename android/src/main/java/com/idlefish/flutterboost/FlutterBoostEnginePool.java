@@ -0,0 +1,264 @@
+package com.idlefish.flutterboost;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.idlefish.flutterboost.Messages.StackInfo;
+import com.idlefish.flutterboost.containers.FlutterContainerManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.flutter.FlutterInjector;
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineCache;
+import io.flutter.embedding.engine.FlutterEngineGroup;
+import io.flutter.embedding.engine.dart.DartExecutor;
+import io.flutter.view.FlutterMain;
+
+/**
+ * 引擎池
+ * <p>
+ * 所有引擎都由同一个 FlutterEngineGroup 创建，第一个之后的引擎是从已有引擎 spawn 出来的，
+ * 共享 isolate group 和 snapshot 内存，创建成本很低。
+ * 引擎按 engineId 缓存在 FlutterEngineCache 中，容器通过 getCachedEngineId() 找到自己的引擎。
+ * <p>
+ * 最后一个容器销毁后引擎变为空闲，根据 FlutterBoostSetupOptions 中的回收策略（空闲超时、onTrimMemory 级别、
+ * 引擎数量上限）销毁，下次 obtain 时重新创建。还没有创建过容器的引擎（例如默认引擎和预热的引擎）不算空闲，不会被回收。
+ * 最后一个容器移除之前插件把 flutter 侧保存的 StackInfo 交给 markIdle，引擎被回收后重建时再交给新插件，
+ * flutter 侧通过 getStackFromHost 恢复页面栈。
+ * <p>
+ * 延迟注册插件模式下 FlutterEngineGroup 创建的引擎总是会注册全部插件，所以改为直接 new FlutterEngine，
+ * 不再共享 snapshot 内存，插件由 FlutterBoostPluginRegistrar 按页面注册。
+ * 指定了非默认的初始路由时同样直接 new FlutterEngine，保证初始路由在 dart 开始执行前设置好。
+ */
+class FlutterBoostEnginePool {
+    private static final String TAG = FlutterBoostEnginePool.class.getSimpleName();
+    private static final String DEFAULT_INITIAL_ROUTE = "/";
+    private final Context context;
+    private final FlutterBoostSetupOptions options;
+    private final FlutterEngineGroup engineGroup;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, FlutterEngine> engines = new LinkedHashMap<>();
+    // 空闲引擎，按变为空闲的先后顺序排列
+    private final LinkedHashMap<String, Long> idleEngines = new LinkedHashMap<>();
+    // 被回收、还没有重建的引擎
+    private final Set<String> reclaimedEngines = new HashSet<>();
+    // 空闲引擎和被回收的引擎在最后一个容器移除前的页面栈
+    private final Map<String, StackInfo> savedStacks = new HashMap<>();
+    private final FlutterBoostPluginRegistrar pluginRegistrar;
+
+    FlutterBoostEnginePool(Context context, FlutterBoostSetupOptions options) {
+        this.context = context.getApplicationContext();
+        this.options = options;
+        this.engineGroup = new FlutterEngineGroup(this.context);
+        this.pluginRegistrar = new FlutterBoostPluginRegistrar(options);
+    }
+
+    /**
+     * Gets the engine with engineId, or null if it has not been created.
+     */
+    FlutterEngine get(String engineId) {
+        return FlutterEngineCache.getInstance().get(engineId);
+    }
+
+    /**
+     * Gets the engine with engineId, creating it from the engine group if needed.
+     */
+    FlutterEngine obtain(String engineId) {
+        return obtain(engineId, null);
+    }
+
+    /**
+     * Gets the engine with engineId, creating it from the engine group if needed,
+     * and records the time of each creation phase into metrics if it is not null.
+     */
+    FlutterEngine obtain(String engineId, StartupMetrics metrics) {
+        FlutterEngine engine = get(engineId);
+        if (engine != null) {
+            return engine;
+        }
+
+        if (options.maxEngineCount() > 0 && engines.size() >= options.maxEngineCount()) {
+            reclaimEldestIdleEngine();
+        }
+
+        engine = createEngine(metrics);
+        put(engineId, engine);
+        reclaimedEngines.remove(engineId);
+
+        // 被回收过的引擎，把回收前的页面栈交给新的插件
+        StackInfo stack = savedStacks.remove(engineId);
+        FlutterBoostPlugin plugin = FlutterBoostUtils.getPlugin(engine);
+        if (stack != null && plugin != null) {
+            plugin.saveStackToHost(stack);
+        }
+        return engine;
+    }
+
+    /**
+     * 创建并运行一个新引擎
+     */
+    FlutterEngine createEngine(StartupMetrics metrics) {
+        // FlutterEngineGroup 创建引擎时不带 shellArgs，这里先用 shellArgs 把 FlutterLoader 初始化好，
+        // 已经初始化过的话（例如异步初始化模式）这里直接返回
+        beginPhase(metrics, StartupMetrics.PHASE_LOADER_INIT);
+        FlutterInjector.instance().flutterLoader().ensureInitializationComplete(context, options.shellArgs());
+        endPhase(metrics);
+        DartExecutor.DartEntrypoint entrypoint = new DartExecutor.DartEntrypoint(
+                FlutterMain.findAppBundlePath(), options.dartEntrypoint());
+        // FlutterEngineGroup 创建引擎时立即开始执行 dart，没有机会先设置初始路由，
+        // 所以指定了非默认的初始路由时也直接 new FlutterEngine，先设置路由再执行 dart 入口
+        boolean customInitialRoute = options.initialRoute() != null && !DEFAULT_INITIAL_ROUTE.equals(options.initialRoute());
+        FlutterEngine engine;
+        if (options.deferPluginRegistration() || customInitialRoute) {
+            beginPhase(metrics, StartupMetrics.PHASE_ENGINE_CREATE);
+            if (options.deferPluginRegistration()) {
+                engine = new FlutterEngine(context, options.shellArgs(), false);
+                pluginRegistrar.registerEagerPlugins(engine);
+            } else {
+                engine = new FlutterEngine(context, options.shellArgs());
+            }
+            endPhase(metrics);
+            beginPhase(metrics, StartupMetrics.PHASE_SET_INITIAL_ROUTE);
+            engine.getNavigationChannel().setInitialRoute(options.initialRoute());
+            endPhase(metrics);
+            beginPhase(metrics, StartupMetrics.PHASE_EXECUTE_DART_ENTRYPOINT);
+            engine.getDartExecutor().executeDartEntrypoint(entrypoint);
+            endPhase(metrics);
+        } else {
+            // FlutterEngineGroup 创建引擎的同时就开始执行 dart 入口，所以这个阶段包含了 executeDartEntrypoint，
+            // 初始路由是默认的 "/"，不需要设置
+            beginPhase(metrics, StartupMetrics.PHASE_ENGINE_CREATE);
+            engine = engineGroup.createAndRunEngine(context, entrypoint);
+            endPhase(metrics);
+        }
+        return engine;
+    }
+
+    private static void beginPhase(StartupMetrics metrics, String phase) {
+        if (metrics != null) {
+            metrics.beginPhase(phase);
+        }
+    }
+
+    private static void endPhase(StartupMetrics metrics) {
+        if (metrics != null) {
+            metrics.endPhase();
+        }
+    }
+
+    /**
+     * Registers an engine that was created outside of the pool.
+     */
+    void put(String engineId, FlutterEngine engine) {
+        FlutterEngineCache.getInstance().put(engineId, engine);
+        engines.put(engineId, engine);
+    }
+
+    /**
+     * 延迟注册插件模式下，在 pageName 的容器创建时注册它需要的插件
+     */
+    void registerPluginsForRoute(String engineId, String pageName) {
+        FlutterEngine engine = engines.get(engineId);
+        if (!options.deferPluginRegistration() || engine == null) {
+            return;
+        }
+        pluginRegistrar.registerPluginsForRoute(engineId, engine, pageName);
+    }
+
+    /**
+     * Gets the ids of all live engines, in creation order.
+     */
+    List<String> engineIds() {
+        return new ArrayList<>(engines.keySet());
+    }
+
+    /**
+     * Whether the engine with engineId was reclaimed and has not been recreated yet.
+     */
+    boolean isReclaimed(String engineId) {
+        return reclaimedEngines.contains(engineId);
+    }
+
+    /**
+     * 引擎上的最后一个容器销毁了，开始空闲计时
+     *
+     * @param stack 最后一个容器移除之前的页面栈，引擎被回收后重建时恢复
+     */
+    void markIdle(String engineId, StackInfo stack) {
+        if (!engines.containsKey(engineId)) {
+            return;
+        }
+        if (stack != null) {
+            savedStacks.put(engineId, stack);
+        }
+        idleEngines.remove(engineId);
+        idleEngines.put(engineId, SystemClock.uptimeMillis());
+        if (options.engineIdleTimeout() > 0) {
+            handler.removeCallbacksAndMessages(engineId);
+            handler.postAtTime(() -> reclaim(engineId), engineId,
+                    SystemClock.uptimeMillis() + options.engineIdleTimeout());
+        }
+    }
+
+    /**
+     * 引擎上创建了容器，取消回收
+     */
+    void markBusy(String engineId) {
+        cancelIdle(engineId);
+        savedStacks.remove(engineId);
+    }
+
+    private void cancelIdle(String engineId) {
+        idleEngines.remove(engineId);
+        handler.removeCallbacksAndMessages(engineId);
+    }
+
+    void onTrimMemory(int level) {
+        if (options.engineTrimMemoryLevel() <= 0 || level < options.engineTrimMemoryLevel()) {
+            return;
+        }
+        for (String engineId : new ArrayList<>(idleEngines.keySet())) {
+            reclaim(engineId);
+        }
+    }
+
+    private void reclaimEldestIdleEngine() {
+        if (idleEngines.isEmpty()) {
+            Log.w(TAG, "No idle engine to reclaim, engine count exceeds " + options.maxEngineCount());
+            return;
+        }
+        reclaim(idleEngines.keySet().iterator().next());
+    }
+
+    /**
+     * 销毁空闲引擎，保留页面栈，等下次 obtain 时重建
+     */
+    void reclaim(String engineId) {
+        if (FlutterContainerManager.instance().getContainerSize(engineId) > 0) {
+            markBusy(engineId);
+            return;
+        }
+        FlutterEngine engine = engines.remove(engineId);
+        cancelIdle(engineId);
+        if (engine == null) {
+            return;
+        }
+
+        FlutterEngineCache.getInstance().remove(engineId);
+        reclaimedEngines.add(engineId);
+        FlutterBoost.instance().onEngineReclaimed(engineId);
+        pluginRegistrar.onEngineDestroyed(engineId);
+        engine.destroy();
+        Log.v(TAG, "#reclaim: " + engineId);
+    }
+}
@@ -0,0 +1,92 @@
+package com.idlefish.flutterboost;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * 按 EventDeliveryPolicy 缓存发给 flutter 的事件，每个 vsync 发送一次
+ * <p>
+ * 只能在主线程使用。
+ */
+class FlutterBoostEventCoalescer implements Choreographer.FrameCallback {
+    /**
+     * 真正发送事件
+     */
+    interface Sender {
+        void send(String key, Map<Object, Object> args);
+    }
+
+    private final Sender sender;
+    private final Map<String, EventDeliveryPolicy> policies = new HashMap<>();
+    // 按第一次缓存的先后顺序发送
+    private final LinkedHashMap<String, LinkedList<Map<Object, Object>>> pendingEvents = new LinkedHashMap<>();
+    private boolean frameScheduled = false;
+
+    FlutterBoostEventCoalescer(Sender sender) {
+        this.sender = sender;
+    }
+
+    void setPolicy(String key, EventDeliveryPolicy policy) {
+        if (policy == null || policy.mode() == EventDeliveryPolicy.MODE_UNBUFFERED) {
+            policies.remove(key);
+            // 已经缓存的先发出去
+            LinkedList<Map<Object, Object>> events = pendingEvents.remove(key);
+            if (events != null) {
+                for (Map<Object, Object> args : events) {
+                    sender.send(key, args);
+                }
+            }
+        } else {
+            policies.put(key, policy);
+        }
+    }
+
+    /**
+     * 缓存事件，返回 false 表示该 key 不缓存，需要调用方立即发送
+     */
+    boolean offer(String key, Map<Object, Object> args) {
+        EventDeliveryPolicy policy = policies.get(key);
+        if (policy == null) {
+            return false;
+        }
+        LinkedList<Map<Object, Object>> events = pendingEvents.get(key);
+        if (events == null) {
+            events = new LinkedList<>();
+            pendingEvents.put(key, events);
+        }
+        events.add(args);
+        while (events.size() > policy.maxEvents()) {
+            events.removeFirst();
+        }
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+        return true;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        Map<String, LinkedList<Map<Object, Object>>> events = new LinkedHashMap<>(pendingEvents);
+        pendingEvents.clear();
+        for (Map.Entry<String, LinkedList<Map<Object, Object>>> entry : events.entrySet()) {
+            EventDeliveryPolicy policy = policies.get(entry.getKey());
+            if (policy != null && policy.mode() == EventDeliveryPolicy.MODE_ACCUMULATE) {
+                Map<Object, Object> args = new HashMap<>();
+                args.put(EventDeliveryPolicy.EVENTS, new ArrayList<Object>(entry.getValue()));
+                sender.send(entry.getKey(), args);
+            } else {
+                sender.send(entry.getKey(), entry.getValue().getLast());
+            }
+        }
+    }
+}
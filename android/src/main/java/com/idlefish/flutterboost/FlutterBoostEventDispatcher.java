@@ -0,0 +1,136 @@
+package com.idlefish.flutterboost;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按 EventDispatchMode 把 EventListener 包装成在对应线程回调的 listener
+ * <p>
+ * 慢的 listener（写磁盘、解析 JSON）放到后台后，主线程上的路由消息不会被它阻塞。
+ * 所有 listener 收到的是同一个 args，不要修改它。
+ * <p>
+ * 二进制事件的 ByteBuffer 只在主线程回调期间有效，切换线程前拷贝一份，后台 listener 拿到的是自己的副本。
+ */
+class FlutterBoostEventDispatcher {
+    private static final String TAG = FlutterBoostEventDispatcher.class.getSimpleName();
+
+    private static class LazyHolder {
+        static final ExecutorService EXECUTOR = createExecutor();
+    }
+
+    /**
+     * 线程数是 CPU 核数减一（至少一个），留一个核给主线程，后台 listener 再忙也不会和主线程抢满所有核
+     */
+    private static ExecutorService createExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "flutter-boost-event-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static EventListener wrap(EventListener listener, EventDispatchMode mode) {
+        if (mode == null || mode == EventDispatchMode.MAIN) {
+            return listener;
+        }
+        Executor executor = mode == EventDispatchMode.SERIAL
+                ? new SerialExecutor(LazyHolder.EXECUTOR) : LazyHolder.EXECUTOR;
+        return new DispatchingListener(listener, executor);
+    }
+
+    private static class DispatchingListener implements EventListener {
+        private final EventListener listener;
+        private final Executor executor;
+
+        DispatchingListener(EventListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        @Override
+        public void onEvent(String key, Map<Object, Object> args) {
+            Map<Object, Object> detached = copyBuffers(args);
+            executor.execute(() -> {
+                try {
+                    listener.onEvent(key, detached);
+                } catch (Throwable t) {
+                    Log.e(TAG, "EventListener of " + key + " failed", t);
+                }
+            });
+        }
+    }
+
+    /**
+     * 把 args 中的 ByteBuffer 拷贝到新的 buffer，没有 ByteBuffer 时原样返回
+     */
+    private static Map<Object, Object> copyBuffers(Map<Object, Object> args) {
+        if (args == null) {
+            return null;
+        }
+        Map<Object, Object> copy = null;
+        for (Map.Entry<Object, Object> entry : args.entrySet()) {
+            if (entry.getValue() instanceof ByteBuffer) {
+                if (copy == null) {
+                    copy = new HashMap<>(args);
+                }
+                ByteBuffer source = ((ByteBuffer) entry.getValue()).duplicate();
+                ByteBuffer buffer = ByteBuffer.allocate(source.remaining()).order(source.order());
+                buffer.put(source);
+                buffer.flip();
+                copy.put(entry.getKey(), buffer);
+            }
+        }
+        return copy != null ? copy : args;
+    }
+
+    /**
+     * 在线程池上按提交顺序一个一个执行
+     */
+    private static class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(Runnable runnable) {
+            tasks.offer(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                executor.execute(active);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.idlefish.flutterboost;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * native 侧 EventListener 的注册表，可以在任意线程注册、移除和分发
+ * <p>
+ * 每个 key 的 listener 是 copy-on-write 的数组，分发时遍历的是快照，回调中注册或移除 listener 不影响本次分发。
+ * key 以 ".*" 结尾时是通配，例如 "cart.*" 匹配 "cart.add"、"cart.item.remove"，单独的 "*" 匹配所有 key。
+ * 通配 key 按 "." 分段存在前缀树中，分发时沿 key 的各段查找，不需要遍历所有通配 key。
+ */
+class FlutterBoostEventRegistry {
+    private static final String WILDCARD = "*";
+    private static final String WILDCARD_SUFFIX = ".*";
+    private static final EventListener[] EMPTY = new EventListener[0];
+    // 已经从 exactListeners 中清理掉的数组，不能再往里加 listener
+    private static final EventListener[] DEAD = new EventListener[0];
+
+    // 精确匹配的 key，没有 listener 的 key 会被移除
+    private final ConcurrentHashMap<String, AtomicReference<EventListener[]>> exactListeners = new ConcurrentHashMap<>();
+    // 通配 key 的前缀树，根节点上的 listener 对应 "*"
+    private final Node root = new Node();
+
+    private static class Node {
+        final ConcurrentHashMap<String, Node> children = new ConcurrentHashMap<>();
+        final AtomicReference<EventListener[]> listeners = new AtomicReference<>(EMPTY);
+
+        Node child(String segment) {
+            Node child = children.get(segment);
+            if (child == null) {
+                Node created = new Node();
+                child = children.putIfAbsent(segment, created);
+                if (child == null) {
+                    child = created;
+                }
+            }
+            return child;
+        }
+    }
+
+    ListenerRemover add(String key, EventListener listener) {
+        if (isWildcard(key)) {
+            Node node = wildcardNode(key);
+            update(node.listeners, listener, true);
+            return () -> update(node.listeners, listener, false);
+        }
+        while (true) {
+            AtomicReference<EventListener[]> ref = exactListeners.get(key);
+            if (ref == null) {
+                AtomicReference<EventListener[]> created = new AtomicReference<>(EMPTY);
+                ref = exactListeners.putIfAbsent(key, created);
+                if (ref == null) {
+                    ref = created;
+                }
+            }
+            if (update(ref, listener, true) != null) {
+                AtomicReference<EventListener[]> finalRef = ref;
+                return () -> {
+                    EventListener[] left = update(finalRef, listener, false);
+                    // 最后一个 listener 移除后清理这个 key
+                    if (left == EMPTY && finalRef.compareAndSet(EMPTY, DEAD)) {
+                        exactListeners.remove(key, finalRef);
+                    }
+                };
+            }
+            // 这个 key 刚被清理掉，换一个新的数组
+            exactListeners.remove(key, ref);
+        }
+    }
+
+    /**
+     * 匹配 key 的所有 listener，先精确匹配的，再按通配前缀从长到短
+     */
+    List<EventListener> match(String key) {
+        List<EventListener> result = new ArrayList<>();
+        AtomicReference<EventListener[]> exact = exactListeners.get(key);
+        if (exact != null) {
+            result.addAll(Arrays.asList(exact.get()));
+        }
+
+        List<EventListener[]> wildcards = new ArrayList<>();
+        wildcards.add(root.listeners.get());
+        Node node = root;
+        int start = 0;
+        int dot;
+        // 只有后面还有段时，前缀上的通配才匹配
+        while (node != null && (dot = key.indexOf('.', start)) >= 0) {
+            node = node.children.get(key.substring(start, dot));
+            if (node != null) {
+                wildcards.add(node.listeners.get());
+            }
+            start = dot + 1;
+        }
+        for (int i = wildcards.size() - 1; i >= 0; i--) {
+            result.addAll(Arrays.asList(wildcards.get(i)));
+        }
+        return result;
+    }
+
+    private static boolean isWildcard(String key) {
+        return WILDCARD.equals(key) || key.endsWith(WILDCARD_SUFFIX);
+    }
+
+    private Node wildcardNode(String key) {
+        Node node = root;
+        if (WILDCARD.equals(key)) {
+            return node;
+        }
+        String prefix = key.substring(0, key.length() - WILDCARD_SUFFIX.length());
+        int start = 0;
+        while (true) {
+            int dot = prefix.indexOf('.', start);
+            String segment = dot >= 0 ? prefix.substring(start, dot) : prefix.substring(start);
+            node = node.child(segment);
+            if (dot < 0) {
+                return node;
+            }
+            start = dot + 1;
+        }
+    }
+
+    /**
+     * CAS 更新 listener 数组，返回更新后的数组，数组已经被清理掉时返回 null
+     */
+    private static EventListener[] update(AtomicReference<EventListener[]> ref, EventListener listener, boolean add) {
+        while (true) {
+            EventListener[] current = ref.get();
+            if (current == DEAD) {
+                return null;
+            }
+            EventListener[] next = add ? append(current, listener) : without(current, listener);
+            if (ref.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static EventListener[] append(EventListener[] listeners, EventListener listener) {
+        EventListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        return next;
+    }
+
+    /**
+     * 返回去掉 listener 后的数组，空了返回 EMPTY
+     */
+    private static EventListener[] without(EventListener[] listeners, EventListener listener) {
+        int index = -1;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return listeners;
+        }
+        if (listeners.length == 1) {
+            return EMPTY;
+        }
+        EventListener[] next = new EventListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, next, 0, index);
+        System.arraycopy(listeners, index + 1, next, index, listeners.length - index - 1);
+        return next;
+    }
+}
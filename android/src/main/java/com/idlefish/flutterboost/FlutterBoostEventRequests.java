@@ -0,0 +1,156 @@
+package com.idlefish.flutterboost;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于事件的请求/响应
+ * <p>
+ * 请求以 EVENT_REQUEST_KEY 事件发送，参数为 {"key", "id", "arguments"}，
+ * 响应以 EVENT_RESPONSE_KEY 事件发回，参数为 {"id", "result", "error"}。两个方向的 id 各自独立。
+ * 超时、取消或引擎回收时清理等待中的请求，不会泄漏。
+ * pendingRequests 和 nextId 没有加锁，所有方法都要在主线程调用，FlutterBoost.requestFromFlutter 会先切到主线程。
+ */
+class FlutterBoostEventRequests {
+    private static final String TAG = FlutterBoostEventRequests.class.getSimpleName();
+    static final String REQUEST_NAME = "key";
+    static final String REQUEST_ID = "id";
+    static final String REQUEST_ARGUMENTS = "arguments";
+    static final String RESPONSE_RESULT = "result";
+    static final String RESPONSE_ERROR = "error";
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, EventRequestHandler> requestHandlers = new ConcurrentHashMap<>();
+    private final Map<Integer, PendingRequest> pendingRequests = new HashMap<>();
+    private int nextId = 0;
+
+    private static class PendingRequest {
+        final String engineId;
+        final EventResponseCallback callback;
+        final Runnable timeout;
+
+        PendingRequest(String engineId, EventResponseCallback callback, Runnable timeout) {
+            this.engineId = engineId;
+            this.callback = callback;
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * 向 flutter 侧发请求，timeoutMillis 为 0 表示不超时
+     */
+    RequestCanceller request(FlutterBoostPlugin plugin, String key, Map<Object, Object> args,
+                             long timeoutMillis, EventResponseCallback callback) {
+        final int id = nextId++;
+        Runnable timeout = () -> {
+            PendingRequest pending = pendingRequests.remove(id);
+            if (pending != null) {
+                pending.callback.onError(EventResponseCallback.ERROR_TIMEOUT);
+            }
+        };
+        pendingRequests.put(id, new PendingRequest(plugin.getEngineId(), callback, timeout));
+        if (timeoutMillis > 0) {
+            handler.postDelayed(timeout, timeoutMillis);
+        }
+
+        Map<Object, Object> request = new HashMap<>();
+        request.put(REQUEST_NAME, key);
+        request.put(REQUEST_ID, id);
+        request.put(REQUEST_ARGUMENTS, args);
+        plugin.sendEventToFlutter(FlutterBoost.EVENT_REQUEST_KEY, request);
+
+        return () -> {
+            PendingRequest pending = pendingRequests.remove(id);
+            if (pending != null) {
+                handler.removeCallbacks(pending.timeout);
+            }
+        };
+    }
+
+    /**
+     * flutter 侧回复了 request 发出的请求
+     */
+    void onResponse(Map<Object, Object> response) {
+        PendingRequest pending = pendingRequests.remove(response.get(REQUEST_ID));
+        if (pending == null) {
+            // 已经超时或取消
+            return;
+        }
+        handler.removeCallbacks(pending.timeout);
+        Object error = response.get(RESPONSE_ERROR);
+        if (error != null) {
+            pending.callback.onError(String.valueOf(error));
+        } else {
+            Map<Object, Object> result = (Map<Object, Object>) response.get(RESPONSE_RESULT);
+            pending.callback.onResponse(result != null ? result : new HashMap<>());
+        }
+    }
+
+    /**
+     * 引擎被回收了，它上面等待中的请求都失败
+     */
+    void onEngineDestroyed(String engineId) {
+        for (Integer id : new HashMap<>(pendingRequests).keySet()) {
+            PendingRequest pending = pendingRequests.get(id);
+            if (pending.engineId.equals(engineId)) {
+                pendingRequests.remove(id);
+                handler.removeCallbacks(pending.timeout);
+                pending.callback.onError(EventResponseCallback.ERROR_ENGINE_GONE);
+            }
+        }
+    }
+
+    ListenerRemover addRequestHandler(String key, EventRequestHandler requestHandler) {
+        requestHandlers.put(key, requestHandler);
+        return () -> requestHandlers.remove(key);
+    }
+
+    /**
+     * flutter 侧发来的请求，交给对应的 EventRequestHandler，回复发回同一个引擎
+     */
+    void onRequest(FlutterBoostPlugin plugin, Map<Object, Object> request) {
+        String key = (String) request.get(REQUEST_NAME);
+        Object id = request.get(REQUEST_ID);
+        Map<Object, Object> args = (Map<Object, Object>) request.get(REQUEST_ARGUMENTS);
+        EventRequestHandler requestHandler = key != null ? requestHandlers.get(key) : null;
+        AtomicBoolean replied = new AtomicBoolean(false);
+        EventRequestHandler.Responder responder = new EventRequestHandler.Responder() {
+            @Override
+            public void success(Map<Object, Object> result) {
+                reply(result, null);
+            }
+
+            @Override
+            public void error(String error) {
+                reply(null, error);
+            }
+
+            private void reply(Map<Object, Object> result, String error) {
+                if (!replied.compareAndSet(false, true)) {
+                    Log.w(TAG, "Request " + key + " has already been replied");
+                    return;
+                }
+                Map<Object, Object> response = new HashMap<>();
+                response.put(REQUEST_ID, id);
+                response.put(RESPONSE_RESULT, result);
+                response.put(RESPONSE_ERROR, error);
+                handler.post(() -> {
+                    if (plugin.getChannel() != null) {
+                        plugin.sendEventToFlutter(FlutterBoost.EVENT_RESPONSE_KEY, response);
+                    }
+                });
+            }
+        };
+        if (requestHandler == null) {
+            responder.error(EventResponseCallback.ERROR_NO_HANDLER);
+            return;
+        }
+        requestHandler.onRequest(key, args != null ? args : new HashMap<>(), responder);
+    }
+}
@@ -1,15 +1,22 @@
 package com.idlefish.flutterboost;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.util.SparseArray;
+import android.view.Choreographer;
 
 import com.idlefish.flutterboost.Messages.CommonParams;
 import com.idlefish.flutterboost.Messages.FlutterRouterApi;
 import com.idlefish.flutterboost.Messages.NativeRouterApi;
 import com.idlefish.flutterboost.Messages.StackInfo;
+import com.idlefish.flutterboost.containers.FlutterBoostActivity;
+import com.idlefish.flutterboost.containers.FlutterBoostFragment;
 import com.idlefish.flutterboost.containers.FlutterContainerManager;
 import com.idlefish.flutterboost.containers.FlutterViewContainer;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -19,6 +26,9 @@ import io.flutter.embedding.engine.FlutterEngine;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
 
 /**
  * flutter boost 插件
@@ -29,13 +39,35 @@ import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
 public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, ActivityAware {
     private static final String TAG = FlutterBoostPlugin.class.getSimpleName();
     private FlutterEngine engine;
+    private String engineId = FlutterBoost.ENGINE_ID;
     private FlutterRouterApi channel;//原生调用 flutter的 channel
+    // 打开 messageMetrics 时包装了引擎的 BinaryMessenger，否则为 null
+    private InstrumentedBinaryMessenger instrumentedMessenger;
+    // 二进制事件的数据走这个 channel，事件 key 先通过 BINARY_EVENT_KEY 事件发送，两边按顺序配对
+    private BasicMessageChannel<ByteBuffer> binaryChannel;
+    private final LinkedList<String> pendingBinaryEventKeys = new LinkedList<>();
+    // flutter 侧 FlutterBoostApp 还没有准备好（没有收到 app_ready）时发给 flutter 的消息
+    private OutboundMessageQueue outboundQueue;
+    // 收到了 flutter 侧的 app_ready，channel 的 handler 都已经注册好
+    private boolean appReady = false;
+    private EngineLifecycle lifecycle;//引擎的生命周期状态机
     private FlutterBoostDelegate delegate;
     private StackInfo dartStack;//flutter页面栈信息
     private SparseArray<String> pageNames;
     private int requestCode = 1000;
-
-    private HashMap<String, LinkedList<EventListener>> listenersTable = new HashMap<>();
+    // 容器切换的各个步骤先攒起来，下一帧之前合并成一条消息发给 flutter 侧一次性处理。
+    // 代价是切换最多晚一帧到达 flutter 侧，一次页面切换本来就要等下一帧才能渲染，所以不影响首帧；
+    // 在这之前发出的其他消息都会先 flushContainerTransition，flutter 侧收到的顺序和原生一致
+    private static final String STEP_OP = "op";
+    private static final String STEP_HIDE = "hide";
+    private static final String STEP_PUSH = "push";
+    private static final String STEP_SHOW = "show";
+    private static final String STEP_REMOVE = "remove";
+    private static final String STEP_LIFECYCLE = "lifecycle";
+    private static final String STEP_RELEASE = "release";
+    private final List<Object> pendingTransition = new ArrayList<>();
+    private final Choreographer.FrameCallback transitionFrameCallback = frameTimeNanos -> flushContainerTransition();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     public FlutterRouterApi getChannel() {
         return channel;
@@ -49,20 +81,77 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
         return delegate;
     }
 
+    /*package*/ void setEngineId(String engineId) {
+        this.engineId = engineId;
+    }
+
+    /**
+     * Gets the queue holding the messages sent before the flutter side is ready, with its counters.
+     */
+    public OutboundMessageQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    /**
+     * Gets the lifecycle state machine of the engine, containers report their lifecycle events to it.
+     */
+    public EngineLifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    /**
+     * Gets the id of the engine this plugin is attached to.
+     */
+    public String getEngineId() {
+        return engineId;
+    }
+
     @Override
     public void onAttachedToEngine(FlutterPluginBinding binding) {
+        BinaryMessenger messenger = binding.getBinaryMessenger();
+        FlutterBoostSetupOptions options = FlutterBoost.instance().getSetupOptions();
+        if (options != null && options.messageMetrics()) {
+            instrumentedMessenger = new InstrumentedBinaryMessenger(messenger,
+                    FlutterBoost.instance().getMessageMetrics());
+            messenger = instrumentedMessenger;
+        }
         // 预制 binaryMessenger 来准备处理消息
-        NativeRouterApi.setup(binding.getBinaryMessenger(), this);
+        NativeRouterApi.setup(messenger, this);
         engine = binding.getFlutterEngine();
+        lifecycle = new EngineLifecycle(engine.getLifecycleChannel());
         //原生调用 flutter的 channel
-        channel = new FlutterRouterApi(binding.getBinaryMessenger());
+        channel = new FlutterRouterApi(messenger);
+        binaryChannel = new BasicMessageChannel<>(messenger,
+                FlutterBoost.BINARY_EVENT_CHANNEL, BinaryCodec.INSTANCE);
+        binaryChannel.setMessageHandler((message, reply) -> {
+            onBinaryEventFromFlutter(message);
+            reply.reply(null);
+        });
         pageNames = new SparseArray<String>();
+        outboundQueue = options != null
+                ? new OutboundMessageQueue(options.outboundQueueCapacity(), options.outboundOverflowPolicy())
+                : new OutboundMessageQueue(FlutterBoostSetupOptions.DEFAULT_OUTBOUND_QUEUE_CAPACITY, null);
     }
 
     @Override
     public void onDetachedFromEngine(FlutterPluginBinding binding) {
         engine = null;
+        appReady = false;
+        if (lifecycle != null) {
+            lifecycle.cancel();
+        }
         channel = null;
+        instrumentedMessenger = null;
+        if (binaryChannel != null) {
+            binaryChannel.setMessageHandler(null);
+            binaryChannel = null;
+        }
+        pendingBinaryEventKeys.clear();
+        Choreographer.getInstance().removeFrameCallback(transitionFrameCallback);
+        pendingTransition.clear();
+        if (outboundQueue != null) {
+            outboundQueue.clear();
+        }
     }
 
     /**
@@ -101,7 +190,9 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
                     .pageName(params.getPageName())
                     .uniqueId(params.getUniqueId())
                     .arguments((Map<String, Object>) (Object) params.getArguments())
+                    .engineId(engineId)
                     .build();
+            FlutterBoost.instance().getRoutePrewarmer().recordOpen(params.getPageName(), params.getArguments());
             delegate.pushFlutterRoute(options);
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* set delegate!");
@@ -159,38 +250,204 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
             arguments = new HashMap<>();
         }
 
-        List<EventListener> listeners = listenersTable.get(key);
-        if (listeners == null) {
+        if (instrumentedMessenger != null) {
+            instrumentedMessenger.tagReceivedEvent(key);
+        }
+
+        if (FlutterBoost.APP_READY_KEY.equals(key)) {
+            onFlutterAppReady();
+            return;
+        }
+
+        if (FlutterBoost.PREWARM_DONE_KEY.equals(key)) {
+            // flutter 侧实际构建好的预热页面
+            List<String> routes = (List<String>) arguments.get(FlutterBoost.PREWARM_ROUTES);
+            if (routes != null) {
+                FlutterBoost.instance().getRoutePrewarmer().recordPrewarmed(routes);
+            }
+            return;
+        }
+
+        if (FlutterBoost.EVENT_REQUEST_KEY.equals(key)) {
+            FlutterBoost.instance().getEventRequests().onRequest(this, arguments);
+            return;
+        }
+
+        if (FlutterBoost.EVENT_RESPONSE_KEY.equals(key)) {
+            FlutterBoost.instance().getEventRequests().onResponse(arguments);
+            return;
+        }
+
+        if (FlutterBoost.STREAM_SUBSCRIBE_KEY.equals(key)) {
+            FlutterBoost.instance().getStreams().onSubscribe(engineId, arguments);
+            return;
+        }
+
+        if (FlutterBoost.STREAM_UNSUBSCRIBE_KEY.equals(key)) {
+            FlutterBoost.instance().getStreams().onUnsubscribe(engineId, arguments);
             return;
         }
 
-        for (EventListener listener : listeners) {
-            listener.onEvent(key, arguments);
+        if (FlutterBoost.BINARY_EVENT_KEY.equals(key)) {
+            // 数据紧接着从 binaryChannel 过来
+            pendingBinaryEventKeys.add((String) arguments.get(FlutterBoost.BINARY_EVENT_NAME));
+            return;
+        }
+
+        FlutterBoost.instance().dispatchEventToNative(key, arguments);
+    }
+
+    /**
+     * flutter 侧通过 BoostChannel.sendBinaryEventToNative 发来的数据，
+     * MAIN 模式的 listener 中拿到的 ByteBuffer 只保证在回调期间有效，需要保留的话请拷贝，
+     * 其他模式的 listener 拿到的是拷贝
+     */
+    private void onBinaryEventFromFlutter(ByteBuffer payload) {
+        String key = pendingBinaryEventKeys.poll();
+        if (key == null) {
+            Log.e(TAG, "#onBinaryEventFromFlutter: no pending key");
+            return;
+        }
+        Map<Object, Object> arguments = new HashMap<>();
+        arguments.put(FlutterBoost.BINARY_PAYLOAD, payload);
+        FlutterBoost.instance().dispatchEventToNative(key, arguments);
+    }
+
+    /**
+     * 发送二进制事件，payload 必须是 direct ByteBuffer，剩余的字节不经拷贝直接交给引擎
+     */
+    public void sendBinaryEventToFlutter(String key, ByteBuffer payload) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            // 先 slice，调用方之后移动 position 不影响要发送的数据
+            ByteBuffer slice = payload.slice();
+            mainHandler.post(() -> sendBinaryEventToFlutter(key, slice));
+            return;
+        }
+        flushContainerTransition();
+        if (channel != null) {
+            // 引擎把 position 当作消息长度，用 slice 共享数据，不改变调用方 buffer 的状态
+            ByteBuffer view = payload.slice();
+            view.position(view.limit());
+            sendWhenAppReady(null, () -> {
+                Map<Object, Object> arguments = new HashMap<>();
+                arguments.put(FlutterBoost.BINARY_EVENT_NAME, key);
+                tagSentEvent(FlutterBoost.BINARY_EVENT_KEY);
+                channel.sendEventToFlutter(FlutterBoost.BINARY_EVENT_KEY, arguments);
+                binaryChannel.send(view);
+            });
+        } else {
+            throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
+        }
+    }
+
+    /**
+     * flutter 侧 FlutterBoostApp 初始化完成，可以接收消息了
+     */
+    private void onFlutterAppReady() {
+        Log.v(TAG, "#onFlutterAppReady: " + engineId);
+        appReady = true;
+        flushOutboundQueue();
+        FlutterBoostSetupOptions options = FlutterBoost.instance().getSetupOptions();
+        if (options == null) {
+            return;
+        }
+        if (!options.prewarmRoutes().isEmpty()) {
+            prewarmRoutes(options.prewarmRoutes());
+        }
+        if (options.predictivePrewarmCount() > 0) {
+            // 主线程空闲时再预热常用页面，不和启动抢时间
+            Looper.myQueue().addIdleHandler(() -> {
+                FlutterBoostRoutePrewarmer prewarmer = FlutterBoost.instance().getRoutePrewarmer();
+                List<String> routes = prewarmer.topRoutes(options.predictivePrewarmCount());
+                routes.removeAll(options.prewarmRoutes());
+                int budget = prewarmer.routeBudget(options.prewarmMemoryPerRoute());
+                if (routes.size() > budget) {
+                    routes = routes.subList(0, budget);
+                }
+                if (channel != null && !routes.isEmpty()) {
+                    prewarmRoutes(routes);
+                }
+                return false;
+            });
+        }
+    }
+
+    /**
+     * 让 flutter 侧提前离屏构建这些页面
+     */
+    public void prewarmRoutes(List<String> routes) {
+        if (channel != null) {
+            Map<Object, Object> arguments = new HashMap<>();
+            arguments.put(FlutterBoost.PREWARM_ROUTES, new ArrayList<Object>(routes));
+            FlutterBoostSetupOptions options = FlutterBoost.instance().getSetupOptions();
+            arguments.put(FlutterBoost.PREWARM_TIME_BUDGET, options != null ? options.prewarmTimeBudget() : 0L);
+            sendEventToFlutter(FlutterBoost.PREWARM_ROUTES_KEY, arguments);
+        } else {
+            throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
     }
 
     /**
-     * 添加 EventListener 并返回 一个移除的 接口
+     * flutter 侧已经发来 app_ready 时直接发送，否则缓存到 outboundQueue，收到 app_ready 后按顺序发出。
+     * dart 开始执行后要等 FlutterBoostApp 初始化好才注册 channel 的 handler，只看引擎是否在执行 dart 的话，
+     * 这期间的消息会被 flutter 侧丢弃
+     *
+     * @param coalesceKey 同一类消息的 key，队列满了按 COALESCE_BY_KEY 合并，null 表示不能合并也不能丢弃
      */
-    ListenerRemover addEventListener(String key, EventListener listener) {
-        assert (key != null && listener != null);
+    private void sendWhenAppReady(String coalesceKey, Runnable send) {
+        if (appReady) {
+            flushOutboundQueue();
+            send.run();
+        } else {
+            outboundQueue.offer(coalesceKey, send);
+        }
+    }
 
-        LinkedList<EventListener> listeners = listenersTable.get(key);
-        if (listeners == null) {
-            listeners = new LinkedList<>();
-            listenersTable.put(key, listeners);
+    /**
+     * 收到 app_ready 后调用，发出之前缓存的消息
+     */
+    private void flushOutboundQueue() {
+        if (outboundQueue != null && outboundQueue.size() > 0 && channel != null && appReady) {
+            outboundQueue.flush();
         }
-        listeners.add(listener);
+    }
 
-        LinkedList<EventListener> finalListeners = listeners;
-        return () -> finalListeners.remove(listener);
+    /**
+     * 每条请求、响应和 stream 数据都是不同的内容，不能因为 key 相同而合并丢弃
+     */
+    private static boolean isCoalescable(String key) {
+        return !FlutterBoost.EVENT_REQUEST_KEY.equals(key)
+                && !FlutterBoost.EVENT_RESPONSE_KEY.equals(key)
+                && !FlutterBoost.STREAM_BATCH_KEY.equals(key);
     }
 
-    private void checkEngineState() {
-        if (engine == null || !engine.getDartExecutor().isExecutingDart()) {
-            throw new RuntimeException("The engine is not ready for use. " +
-                    "The message may be drop silently by the engine. " +
-                    "You should check 'DartExecutor.isExecutingDart()' first!");
+    /**
+     * 打开 messageMetrics 时，标记紧接着发出的消息是 key 对应的事件
+     */
+    private void tagSentEvent(String key) {
+        if (instrumentedMessenger != null) {
+            instrumentedMessenger.tagSentEvent(key);
+        }
+    }
+
+    /**
+     * Send an event to the flutter side of this engine, queued until the flutter side is ready.
+     * Container transitions reported before the event reach flutter before it.
+     * Calls from other threads are posted to the main thread.
+     */
+    public void sendEventToFlutter(String key, Map<Object, Object> args) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> sendEventToFlutter(key, args));
+            return;
+        }
+        flushContainerTransition();
+        if (channel != null) {
+            sendWhenAppReady(isCoalescable(key) ? "event:" + key : null, () -> {
+                tagSentEvent(key);
+                channel.sendEventToFlutter(key, args);
+            });
+        } else {
+            throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
     }
 
@@ -199,47 +456,47 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
      */
     public void pushRoute(String uniqueId, String pageName, Map<String, Object> arguments,
                           final FlutterRouterApi.Reply<Void> callback) {
+        flushContainerTransition();
         if (channel != null) {
-            checkEngineState();
             CommonParams params = new CommonParams();
             params.setUniqueId(uniqueId);
             params.setPageName(pageName);
             params.setArguments((Map<Object, Object>) (Object) arguments);
-            channel.pushRoute(params, reply -> {
+            sendWhenAppReady(null, () -> channel.pushRoute(params, reply -> {
                 if (callback != null) {
                     callback.reply(null);
                 }
-            });
+            }));
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
     }
 
     public void popRoute(String uniqueId, final FlutterRouterApi.Reply<Void> callback) {
+        flushContainerTransition();
         if (channel != null) {
-            checkEngineState();
             CommonParams params = new CommonParams();
             params.setUniqueId(uniqueId);
-            channel.popRoute(params, reply -> {
+            sendWhenAppReady(null, () -> channel.popRoute(params, reply -> {
                 if (callback != null) {
                     callback.reply(null);
                 }
-            });
+            }));
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
     }
 
     public void removeRoute(String uniqueId, final FlutterRouterApi.Reply<Void> callback) {
+        flushContainerTransition();
         if (channel != null) {
-            checkEngineState();
             CommonParams params = new CommonParams();
             params.setUniqueId(uniqueId);
-            channel.removeRoute(params, reply -> {
+            sendWhenAppReady(null, () -> channel.removeRoute(params, reply -> {
                 if (callback != null) {
                     callback.reply(null);
                 }
-            });
+            }));
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
@@ -247,11 +504,9 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
 
     //通知flutter侧 activity处于前台
     public void onForeground() {
+        flushContainerTransition();
         if (channel != null) {
-            checkEngineState();
-            CommonParams params = new CommonParams();
-            channel.onForeground(params, reply -> {
-            });
+            sendWhenAppReady("foreground", () -> channel.onForeground(new CommonParams(), null));
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
@@ -260,11 +515,9 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
 
     //通知flutter侧 activity处于后台
     public void onBackground() {
+        flushContainerTransition();
         if (channel != null) {
-            checkEngineState();
-            CommonParams params = new CommonParams();
-            channel.onBackground(params, reply -> {
-            });
+            sendWhenAppReady("foreground", () -> channel.onBackground(new CommonParams(), null));
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
@@ -273,12 +526,9 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
 
     //容器显示后的回掉
     public void onContainerShow(String uniqueId) {
+        flushContainerTransition();
         if (channel != null) {
-            checkEngineState();
-            CommonParams params = new CommonParams();
-            params.setUniqueId(uniqueId);
-            channel.onContainerShow(params, reply -> {
-            });
+            sendWhenAppReady("container:" + uniqueId, () -> channel.onContainerShow(uniqueId));
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
@@ -286,26 +536,40 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
     }
 
     public void onContainerHide(String uniqueId) {
+        flushContainerTransition();
         if (channel != null) {
-            checkEngineState();
-            CommonParams params = new CommonParams();
-            params.setUniqueId(uniqueId);
-            channel.onContainerHide(params, reply -> {
-            });
+            sendWhenAppReady("container:" + uniqueId, () -> channel.onContainerHide(uniqueId));
         } else {
             throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
         }
         Log.v(TAG, "## onContainerHide: " + channel);
     }
 
+    /**
+     * 改变当前引擎 flutter 侧的整体生命周期
+     */
+    public void changeFlutterAppLifecycle(int state) {
+        assert (state == FlutterBoost.FLUTTER_APP_STATE_PAUSED || state == FlutterBoost.FLUTTER_APP_STATE_RESUMED);
+        flushContainerTransition();
+        if (channel != null) {
+            Map<Object, Object> arguments = new HashMap<>();
+            arguments.put(FlutterBoost.LIFECYCLE_STATE, state);
+            sendEventToFlutter(FlutterBoost.APP_LIFECYCLE_CHANGED_KEY, arguments);
+        } else {
+            throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
+        }
+    }
+
     /**
      * 有flutter 容器创建了
      */
     public void onContainerCreated(FlutterViewContainer container) {
         Log.v(TAG, "#onContainerCreated: " + container.getUniqueId());
         FlutterContainerManager.instance().addContainer(container.getUniqueId(), container);
-        if (FlutterContainerManager.instance().getContainerSize() == 1) { //当有一个的时候 就改变flutter侧的 整体生命周期为 RESUMED
-            FlutterBoost.instance().changeFlutterAppLifecycle(FlutterBoost.FLUTTER_APP_STATE_RESUMED);
+        FlutterBoost.instance().getEnginePool().registerPluginsForRoute(engineId, container.getUrl());
+        if (FlutterContainerManager.instance().getContainerSize(engineId) == 1) { //当有一个的时候 就改变flutter侧的 整体生命周期为 RESUMED
+            FlutterBoost.instance().getEnginePool().markBusy(engineId);
+            addLifecycleStep(FlutterBoost.FLUTTER_APP_STATE_RESUMED);
         }
     }
 
@@ -321,10 +585,48 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
 
         //记录活跃的 FlutterViewContainer
         FlutterContainerManager.instance().activateContainer(uniqueId, container);
-        //打开对应的flutter 页面
-        pushRoute(uniqueId, container.getUrl(), container.getUrlParams(), reply -> {
-        });
-        onContainerShow(uniqueId);
+        //打开对应的flutter 页面，和之前的 hide 合并成一次切换
+        Map<Object, Object> push = transitionStep(STEP_PUSH, uniqueId);
+        push.put("pageName", container.getUrl());
+        push.put("arguments", container.getUrlParams());
+        addTransitionStep(push);
+        addTransitionStep(transitionStep(STEP_SHOW, uniqueId));
+        FlutterBoost.instance().getStreams().onContainerShown(uniqueId);
+        releaseContainersOverLimit();
+    }
+
+    /**
+     * 只保留最近显示的 maxLiveContainers 个容器，更早的释放 FlutterView 的 surface，
+     * 并让 flutter 侧移除它的页面，再次显示时重建
+     */
+    private void releaseContainersOverLimit() {
+        FlutterBoostSetupOptions options = FlutterBoost.instance().getSetupOptions();
+        int limit = options != null ? options.maxLiveContainers() : 0;
+        if (limit <= 0) {
+            return;
+        }
+        List<FlutterViewContainer> containers = FlutterContainerManager.instance().getActiveContainers();
+        for (int i = 0; i < containers.size() - limit; i++) {
+            FlutterViewContainer container = containers.get(i);
+            boolean released = false;
+            if (container instanceof FlutterBoostActivity) {
+                released = ((FlutterBoostActivity) container).releaseSurface();
+            } else if (container instanceof FlutterBoostFragment) {
+                released = ((FlutterBoostFragment) container).releaseSurface();
+            }
+            if (released) {
+                Log.v(TAG, "#releaseContainersOverLimit: " + container.getUniqueId());
+                FlutterBoost.instance().getPlugin(container.getCachedEngineId())
+                        .addTransitionStep(transitionStep(STEP_RELEASE, container.getUniqueId()));
+            }
+        }
+    }
+
+    /**
+     * 容器的 FlutterView 首帧上屏
+     */
+    public void onContainerUiDisplayed(FlutterViewContainer container) {
+        FlutterBoost.instance().getRoutePrewarmer().recordFirstFrame(container.getUrl());
     }
 
     /**
@@ -334,7 +636,9 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
      */
     public void onContainerDisappeared(FlutterViewContainer container) {
         String uniqueId = container.getUniqueId();
-        onContainerHide(uniqueId);
+        addTransitionStep(transitionStep(STEP_HIDE, uniqueId));
+        // 不可见的容器不再接收 stream 数据
+        FlutterBoost.instance().getStreams().onContainerHidden(uniqueId);
     }
 
 
@@ -343,12 +647,60 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
      */
     public void onContainerDestroyed(FlutterViewContainer container) {
         String uniqueId = container.getUniqueId();
-        removeRoute(uniqueId, reply -> {
-        });
+        addTransitionStep(transitionStep(STEP_REMOVE, uniqueId));
+        FlutterBoost.instance().getStreams().onContainerDestroyed(uniqueId);
+        // 最后一个容器移除之前保存页面栈，引擎被回收后重建时恢复
+        StackInfo stack = FlutterContainerManager.instance().getContainerSize(engineId) == 1 ? getStackFromHost() : null;
         FlutterContainerManager.instance().removeContainer(uniqueId);
-        if (FlutterContainerManager.instance().getContainerSize() == 0) {//没有一个flutter 容器的时候 就是PAUSED 状态
-            FlutterBoost.instance().changeFlutterAppLifecycle(FlutterBoost.FLUTTER_APP_STATE_PAUSED);
+        if (FlutterContainerManager.instance().getContainerSize(engineId) == 0) {//没有一个flutter 容器的时候 就是PAUSED 状态
+            addLifecycleStep(FlutterBoost.FLUTTER_APP_STATE_PAUSED);
+            // 引擎空闲了，按回收策略计时
+            FlutterBoost.instance().getEnginePool().markIdle(engineId, stack);
+        }
+    }
+
+    private static Map<Object, Object> transitionStep(String op, String uniqueId) {
+        Map<Object, Object> step = new HashMap<>();
+        step.put(STEP_OP, op);
+        step.put("uniqueId", uniqueId);
+        return step;
+    }
+
+    private void addLifecycleStep(int state) {
+        Map<Object, Object> step = new HashMap<>();
+        step.put(STEP_OP, STEP_LIFECYCLE);
+        step.put(FlutterBoost.LIFECYCLE_STATE, state);
+        addTransitionStep(step);
+    }
+
+    private void addTransitionStep(Map<Object, Object> step) {
+        if (pendingTransition.isEmpty()) {
+            Choreographer.getInstance().postFrameCallback(transitionFrameCallback);
         }
+        pendingTransition.add(step);
+    }
+
+    /**
+     * 把攒下的容器切换步骤作为一条消息发给 flutter 侧。
+     * 直接发送的路由消息之前也要先调用，保证 flutter 侧收到的顺序和原生一致
+     */
+    /*package*/ void flushContainerTransition() {
+        if (pendingTransition.isEmpty()) {
+            return;
+        }
+        Choreographer.getInstance().removeFrameCallback(transitionFrameCallback);
+        if (channel == null) {
+            pendingTransition.clear();
+            return;
+        }
+        Map<Object, Object> arguments = new HashMap<>();
+        arguments.put(FlutterBoost.TRANSITION_STEPS, new ArrayList<>(pendingTransition));
+        pendingTransition.clear();
+        // 切换步骤不能合并，丢了会导致两侧页面栈不一致
+        sendWhenAppReady(null, () -> {
+            tagSentEvent(FlutterBoost.CONTAINER_TRANSITION_KEY);
+            channel.sendEventToFlutter(FlutterBoost.CONTAINER_TRANSITION_KEY, arguments);
+        });
     }
 
     /**
@@ -360,7 +712,6 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
     public void onAttachedToActivity(ActivityPluginBinding activityPluginBinding) {
         activityPluginBinding.addActivityResultListener((requestCode, resultCode, intent) -> {
             if (channel != null) {
-                checkEngineState();
                 CommonParams params = new CommonParams();
                 String pageName = pageNames.get(requestCode);
                 pageNames.remove(requestCode);
@@ -370,8 +721,7 @@ public class FlutterBoostPlugin implements FlutterPlugin, NativeRouterApi, Activ
                         Map<Object, Object> result = FlutterBoostUtils.bundleToMap(intent.getExtras());
                         params.setArguments(result);
                     }
-                    channel.onNativeResult(params, reply -> {
-                    });
+                    sendWhenAppReady(null, () -> channel.onNativeResult(params, null));
                 }
             } else {
                 throw new RuntimeException("FlutterBoostPlugin might *NOT* have attached to engine yet!");
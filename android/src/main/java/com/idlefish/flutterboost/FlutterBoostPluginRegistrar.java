@@ -0,0 +1,78 @@
+package com.idlefish.flutterboost;
+
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.embedding.engine.plugins.util.GeneratedPluginRegister;
+
+/**
+ * 延迟注册插件
+ * <p>
+ * 引擎创建时只注册 FlutterBoostPlugin 和 eagerPlugins，其他插件在第一次创建需要它们的容器时才注册。
+ * 没有在 routePlugins 中配置的页面，第一次打开时注册 GeneratedPluginRegistrant 中的全部插件。
+ */
+class FlutterBoostPluginRegistrar {
+    private static final String TAG = FlutterBoostPluginRegistrar.class.getSimpleName();
+    private final FlutterBoostSetupOptions options;
+    // 已经注册了全部插件的引擎
+    private final Set<String> fullyRegisteredEngines = new HashSet<>();
+
+    FlutterBoostPluginRegistrar(FlutterBoostSetupOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * 引擎创建时注册 FlutterBoostPlugin 和 eagerPlugins
+     */
+    void registerEagerPlugins(FlutterEngine engine) {
+        register(engine, FlutterBoostPlugin.class);
+        for (Class<? extends FlutterPlugin> pluginClass : options.eagerPlugins()) {
+            register(engine, pluginClass);
+        }
+    }
+
+    /**
+     * 打开 pageName 对应的页面前，注册它需要的插件
+     */
+    void registerPluginsForRoute(String engineId, FlutterEngine engine, String pageName) {
+        if (fullyRegisteredEngines.contains(engineId)) {
+            return;
+        }
+        Map<String, List<Class<? extends FlutterPlugin>>> routePlugins = options.routePlugins();
+        List<Class<? extends FlutterPlugin>> plugins = pageName != null ? routePlugins.get(pageName) : null;
+        if (plugins == null) {
+            // 不知道这个页面需要哪些插件，全部注册，已经注册过的会被引擎忽略
+            GeneratedPluginRegister.registerGeneratedPlugins(engine);
+            fullyRegisteredEngines.add(engineId);
+            Log.v(TAG, "#registerPluginsForRoute: all plugins, " + pageName);
+            return;
+        }
+        for (Class<? extends FlutterPlugin> pluginClass : plugins) {
+            register(engine, pluginClass);
+        }
+    }
+
+    /**
+     * 引擎被回收了，重建后需要重新注册
+     */
+    void onEngineDestroyed(String engineId) {
+        fullyRegisteredEngines.remove(engineId);
+    }
+
+    private void register(FlutterEngine engine, Class<? extends FlutterPlugin> pluginClass) {
+        if (engine.getPlugins().has(pluginClass)) {
+            return;
+        }
+        try {
+            engine.getPlugins().add(pluginClass.newInstance());
+        } catch (Throwable t) {
+            Log.e(TAG, "Failed to register plugin " + pluginClass.getName(), t);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.idlefish.flutterboost;
 
 import java.util.Map;
 
+import io.flutter.embedding.android.RenderMode;
+
 /**
  * 路由信息记录类
  */
@@ -10,12 +12,16 @@ public class FlutterBoostRouteOptions {
     private final Map<String, Object> arguments;
     private final int requestCode;
     private final String uniqueId;
+    private final String engineId;
+    private final RenderMode renderMode;
 
     private FlutterBoostRouteOptions(FlutterBoostRouteOptions.Builder builder) {
         this.pageName = builder.pageName;
         this.arguments = builder.arguments;
         this.requestCode = builder.requestCode;
         this.uniqueId = builder.uniqueId;
+        this.engineId = builder.engineId;
+        this.renderMode = builder.renderMode;
     }
 
     public String pageName() {
@@ -34,11 +40,21 @@ public class FlutterBoostRouteOptions {
         return uniqueId;
     }
 
+    public String engineId() {
+        return engineId;
+    }
+
+    public RenderMode renderMode() {
+        return renderMode;
+    }
+
     public static class Builder {
         private String pageName;
         private Map<String, Object> arguments;
         private int requestCode;
         private String uniqueId;
+        private String engineId;
+        private RenderMode renderMode;
 
         public Builder() {
         }
@@ -48,6 +64,11 @@ public class FlutterBoostRouteOptions {
             return this;
         }
 
+        // Large binary values should be wrapped with BinaryPayload.wrap(ByteBuffer),
+        // which passes through Intent extras without copying the bytes.
+        // FlutterBoostActivity and FlutterBoostFragment release them when they are destroyed.
+        // If the open does not end in one of them, e.g. a custom delegate routes elsewhere
+        // or the launch fails, the caller must call BinaryPayload.release(arguments).
         public FlutterBoostRouteOptions.Builder arguments(Map<String, Object> arguments) {
             this.arguments = arguments;
             return this;
@@ -63,6 +84,18 @@ public class FlutterBoostRouteOptions {
             return this;
         }
 
+        // 指定页面运行在哪个引擎上，为空时使用默认引擎 FlutterBoost.ENGINE_ID
+        public FlutterBoostRouteOptions.Builder engineId(String engineId) {
+            this.engineId = engineId;
+            return this;
+        }
+
+        // 指定页面容器的渲染模式，为空时使用默认的 texture；不透明的全屏页面可以用更快的 surface
+        public FlutterBoostRouteOptions.Builder renderMode(RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
         public FlutterBoostRouteOptions build() {
             return new FlutterBoostRouteOptions(this);
         }
@@ -0,0 +1,227 @@
+package com.idlefish.flutterboost;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 根据页面打开频率预热页面
+ * <p>
+ * 记录通过 FlutterBoost.open() 和 FlutterBoostPlugin.pushFlutterRoute 打开的 pageName 次数，
+ * 合并后延迟写入 SharedPreferences（进入后台时立即写入），启动后主线程空闲时预热最常打开的 N 个页面，
+ * 预热的页面数受可用内存限制。
+ * 同时统计预热的命中/未命中次数，以及两种情况下从 open 到首帧的耗时。
+ * 只有 flutter 侧确实构建好、并且以无参数方式打开的页面才算命中。
+ */
+public class FlutterBoostRoutePrewarmer {
+    private static final String PREFS_NAME = "flutter_boost_route_usage";
+    // 最多记录多少个页面的使用次数，超过时丢弃使用最少的
+    private static final int MAX_TRACKED_ROUTES = 64;
+    // 打开次数变化后多久写入 SharedPreferences，期间的变化合并为一次写入
+    private static final long PERSIST_DELAY_MILLIS = 5000;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable persistRunnable = this::persist;
+    private boolean persistScheduled = false;
+    private Map<String, Integer> usageCounts;
+    private final Set<String> prewarmedRoutes = new HashSet<>();
+    private final Map<String, PendingOpen> pendingOpens = new HashMap<>();
+
+    private int hitCount = 0;
+    private int missCount = 0;
+    private long hitFirstFrameMillis = 0;
+    private int hitFirstFrameCount = 0;
+    private long missFirstFrameMillis = 0;
+    private int missFirstFrameCount = 0;
+
+    private static class PendingOpen {
+        final long openTime;
+        final boolean hit;
+
+        PendingOpen(long openTime, boolean hit) {
+            this.openTime = openTime;
+            this.hit = hit;
+        }
+    }
+
+    FlutterBoostRoutePrewarmer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    private SharedPreferences prefs() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private Map<String, Integer> usageCounts() {
+        if (usageCounts == null) {
+            usageCounts = new HashMap<>();
+            for (Map.Entry<String, ?> entry : prefs().getAll().entrySet()) {
+                if (entry.getValue() instanceof Integer) {
+                    usageCounts.put(entry.getKey(), (Integer) entry.getValue());
+                }
+            }
+        }
+        return usageCounts;
+    }
+
+    /**
+     * 记录一次页面打开，flutter 侧只有无参数打开时才使用预热好的页面
+     */
+    void recordOpen(String pageName, Map<?, ?> arguments) {
+        if (pageName == null) {
+            return;
+        }
+        // 不管是否命中，flutter 侧的预热页面都已经被用掉或丢弃
+        boolean prewarmed = prewarmedRoutes.remove(pageName);
+        boolean hit = prewarmed && (arguments == null || arguments.isEmpty());
+        if (hit) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        pendingOpens.put(pageName, new PendingOpen(SystemClock.uptimeMillis(), hit));
+
+        Map<String, Integer> counts = usageCounts();
+        Integer count = counts.get(pageName);
+        counts.put(pageName, count == null ? 1 : count + 1);
+        if (counts.size() > MAX_TRACKED_ROUTES) {
+            String leastUsed = null;
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (!entry.getKey().equals(pageName)
+                        && (leastUsed == null || entry.getValue() < counts.get(leastUsed))) {
+                    leastUsed = entry.getKey();
+                }
+            }
+            counts.remove(leastUsed);
+        }
+        if (!persistScheduled) {
+            persistScheduled = true;
+            handler.postDelayed(persistRunnable, PERSIST_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * 立即写入还没有保存的打开次数，app 进入后台时调用
+     */
+    void persist() {
+        if (!persistScheduled) {
+            return;
+        }
+        persistScheduled = false;
+        handler.removeCallbacks(persistRunnable);
+        SharedPreferences.Editor editor = prefs().edit().clear();
+        for (Map.Entry<String, Integer> entry : usageCounts().entrySet()) {
+            editor.putInt(entry.getKey(), entry.getValue());
+        }
+        editor.apply();
+    }
+
+    /**
+     * 页面打开后首帧上屏
+     */
+    void recordFirstFrame(String pageName) {
+        PendingOpen pending = pageName != null ? pendingOpens.remove(pageName) : null;
+        if (pending == null) {
+            return;
+        }
+        long cost = SystemClock.uptimeMillis() - pending.openTime;
+        if (pending.hit) {
+            hitFirstFrameMillis += cost;
+            hitFirstFrameCount++;
+        } else {
+            missFirstFrameMillis += cost;
+            missFirstFrameCount++;
+        }
+    }
+
+    /**
+     * 记录 flutter 侧已经构建好的预热页面，超出时间预算或不允许预热的页面不在其中
+     */
+    void recordPrewarmed(List<String> routes) {
+        prewarmedRoutes.addAll(routes);
+    }
+
+    /**
+     * 打开次数最多的 count 个页面
+     */
+    List<String> topRoutes(int count) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(usageCounts().entrySet());
+        Collections.sort(entries, (a, b) -> b.getValue() - a.getValue());
+        List<String> routes = new ArrayList<>();
+        for (int i = 0; i < entries.size() && i < count; i++) {
+            routes.add(entries.get(i).getKey());
+        }
+        return routes;
+    }
+
+    /**
+     * 按可用内存计算最多可以预热几个页面：系统可用内存在 lowMemory 阈值之上的余量，
+     * 除以每个预热页面预计占用的内存。低内存设备和内存紧张时为 0
+     *
+     * @param bytesPerRoute 每个预热页面预计占用的内存，单位字节
+     */
+    int routeBudget(long bytesPerRoute) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am == null || bytesPerRoute <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && am.isLowRamDevice()) {
+            return 0;
+        }
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        am.getMemoryInfo(memoryInfo);
+        if (memoryInfo.lowMemory) {
+            return 0;
+        }
+        long headroom = memoryInfo.availMem - memoryInfo.threshold;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, headroom / bytesPerRoute));
+    }
+
+    /**
+     * Gets the number of opens whose page had been prewarmed.
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of opens whose page had not been prewarmed.
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the average time from open to first frame for prewarmed pages, or -1 if unknown.
+     */
+    public long getAverageHitFirstFrameMillis() {
+        return hitFirstFrameCount > 0 ? hitFirstFrameMillis / hitFirstFrameCount : -1;
+    }
+
+    /**
+     * Gets the average time from open to first frame for pages that were not prewarmed, or -1 if unknown.
+     */
+    public long getAverageMissFirstFrameMillis() {
+        return missFirstFrameCount > 0 ? missFirstFrameMillis / missFirstFrameCount : -1;
+    }
+
+    /**
+     * Gets a copy of the persisted open counts per page name.
+     */
+    public Map<String, Integer> getUsageCounts() {
+        return new HashMap<>(usageCounts());
+    }
+}
@@ -1,19 +1,60 @@
 package com.idlefish.flutterboost;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+
 /**
  * flutter boost 的配置
  */
 public class FlutterBoostSetupOptions {
+    /*package*/ static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 64;
+    /*package*/ static final long DEFAULT_PREWARM_MEMORY_PER_ROUTE = 8 * 1024 * 1024;
     private final String initialRoute; //初始路由 默认 /
     private final String dartEntrypoint; // dart 代码入口 默认为 main(main.dart)
     private final String[] shellArgs; // 在创建 FlutterEngine 时会用到 
     private final boolean shouldOverrideBackForegroundEvent; // 是否回掉给flutter测，app 切到前台 和后台的 事件 在 FlutterBoost 的内部类 BoostActivityLifecycle 中使用了
+    private final boolean asyncSetup; // 是否异步初始化引擎，不阻塞 Application.onCreate
+    private final long engineIdleTimeout; // 引擎没有任何容器后多久回收，单位毫秒，0 表示不回收
+    private final int engineTrimMemoryLevel; // onTrimMemory 达到该级别时回收空闲引擎，0 表示不回收
+    private final int maxEngineCount; // 同时存活的引擎数量上限，超过时优先回收空闲引擎，0 表示不限制
+    private final List<String> prewarmRoutes; // 引擎启动后在 flutter 侧提前离屏构建的页面
+    private final int predictivePrewarmCount; // 根据历史打开次数预热的页面数量，0 表示不预热
+    private final long prewarmTimeBudget; // flutter 侧预热页面的总耗时上限，单位毫秒，0 表示不限制
+    private final long prewarmMemoryPerRoute; // 每个预热页面预计占用的内存，单位字节，按可用内存限制预测预热的页面数，0 表示不限制
+    private final boolean deferPluginRegistration; // 是否延迟注册插件，引擎创建时只注册 eagerPlugins
+    private final List<Class<? extends FlutterPlugin>> eagerPlugins; // 延迟注册模式下引擎创建时就注册的插件
+    private final Map<String, List<Class<? extends FlutterPlugin>>> routePlugins; // 延迟注册模式下每个页面需要的插件
+    private final boolean messageMetrics; // 是否统计原生和 flutter 之间的消息，见 MessageMetrics
+    private final int outboundQueueCapacity; // flutter 侧准备好之前最多缓存多少条可以丢弃的消息
+    private final OutboundOverflowPolicy outboundOverflowPolicy; // 缓存满了之后的处理方式
+    private final int maxLiveContainers; // 最多保留多少个容器的 surface 和 flutter 侧页面，0 表示不限制
+    private final boolean snapshotPlaceholder; // 容器 detach 时是否用最后一帧的截图占位，surface 模式的页面不打开时切换中是空白的
 
     private FlutterBoostSetupOptions(Builder builder) {
         this.initialRoute = builder.initialRoute;
         this.dartEntrypoint = builder.dartEntrypoint;
         this.shellArgs = builder.shellArgs;
         this.shouldOverrideBackForegroundEvent = builder.shouldOverrideBackForegroundEvent;
+        this.asyncSetup = builder.asyncSetup;
+        this.engineIdleTimeout = builder.engineIdleTimeout;
+        this.engineTrimMemoryLevel = builder.engineTrimMemoryLevel;
+        this.maxEngineCount = builder.maxEngineCount;
+        this.prewarmRoutes = builder.prewarmRoutes;
+        this.predictivePrewarmCount = builder.predictivePrewarmCount;
+        this.prewarmTimeBudget = builder.prewarmTimeBudget;
+        this.prewarmMemoryPerRoute = builder.prewarmMemoryPerRoute;
+        this.deferPluginRegistration = builder.deferPluginRegistration;
+        this.eagerPlugins = builder.eagerPlugins;
+        this.routePlugins = builder.routePlugins;
+        this.messageMetrics = builder.messageMetrics;
+        this.outboundQueueCapacity = builder.outboundQueueCapacity;
+        this.outboundOverflowPolicy = builder.outboundOverflowPolicy;
+        this.maxLiveContainers = builder.maxLiveContainers;
+        this.snapshotPlaceholder = builder.snapshotPlaceholder;
     }
 
     public static FlutterBoostSetupOptions createDefault() {
@@ -36,6 +77,70 @@ public class FlutterBoostSetupOptions {
         return shouldOverrideBackForegroundEvent;
     }
 
+    public boolean asyncSetup() {
+        return asyncSetup;
+    }
+
+    public long engineIdleTimeout() {
+        return engineIdleTimeout;
+    }
+
+    public int engineTrimMemoryLevel() {
+        return engineTrimMemoryLevel;
+    }
+
+    public int maxEngineCount() {
+        return maxEngineCount;
+    }
+
+    public List<String> prewarmRoutes() {
+        return prewarmRoutes;
+    }
+
+    public int predictivePrewarmCount() {
+        return predictivePrewarmCount;
+    }
+
+    public long prewarmTimeBudget() {
+        return prewarmTimeBudget;
+    }
+
+    public long prewarmMemoryPerRoute() {
+        return prewarmMemoryPerRoute;
+    }
+
+    public boolean deferPluginRegistration() {
+        return deferPluginRegistration;
+    }
+
+    public List<Class<? extends FlutterPlugin>> eagerPlugins() {
+        return eagerPlugins;
+    }
+
+    public Map<String, List<Class<? extends FlutterPlugin>>> routePlugins() {
+        return routePlugins;
+    }
+
+    public boolean messageMetrics() {
+        return messageMetrics;
+    }
+
+    public int outboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public OutboundOverflowPolicy outboundOverflowPolicy() {
+        return outboundOverflowPolicy;
+    }
+
+    public int maxLiveContainers() {
+        return maxLiveContainers;
+    }
+
+    public boolean snapshotPlaceholder() {
+        return snapshotPlaceholder;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -55,6 +160,22 @@ public class FlutterBoostSetupOptions {
         return "initialRoute:" + this.initialRoute +
                 ", dartEntrypoint:" + this.dartEntrypoint +
                 ", shouldOverrideBackForegroundEvent:" + this.shouldOverrideBackForegroundEvent +
+                ", asyncSetup:" + this.asyncSetup +
+                ", engineIdleTimeout:" + this.engineIdleTimeout +
+                ", engineTrimMemoryLevel:" + this.engineTrimMemoryLevel +
+                ", maxEngineCount:" + this.maxEngineCount +
+                ", prewarmRoutes:" + this.prewarmRoutes +
+                ", predictivePrewarmCount:" + this.predictivePrewarmCount +
+                ", prewarmTimeBudget:" + this.prewarmTimeBudget +
+                ", prewarmMemoryPerRoute:" + this.prewarmMemoryPerRoute +
+                ", deferPluginRegistration:" + this.deferPluginRegistration +
+                ", eagerPlugins:" + this.eagerPlugins +
+                ", routePlugins:" + this.routePlugins +
+                ", messageMetrics:" + this.messageMetrics +
+                ", outboundQueueCapacity:" + this.outboundQueueCapacity +
+                ", outboundOverflowPolicy:" + this.outboundOverflowPolicy +
+                ", maxLiveContainers:" + this.maxLiveContainers +
+                ", snapshotPlaceholder:" + this.snapshotPlaceholder +
                 ", shellArgs:" + sb.toString();
     }
 
@@ -62,6 +183,22 @@ public class FlutterBoostSetupOptions {
         private String initialRoute = "/";
         private String dartEntrypoint = "main";
         private boolean shouldOverrideBackForegroundEvent = false;
+        private boolean asyncSetup = false;
+        private long engineIdleTimeout = 0;
+        private int engineTrimMemoryLevel = 0;
+        private int maxEngineCount = 0;
+        private List<String> prewarmRoutes = new ArrayList<>();
+        private int predictivePrewarmCount = 0;
+        private long prewarmTimeBudget = 0;
+        private long prewarmMemoryPerRoute = DEFAULT_PREWARM_MEMORY_PER_ROUTE;
+        private boolean deferPluginRegistration = false;
+        private List<Class<? extends FlutterPlugin>> eagerPlugins = new ArrayList<>();
+        private Map<String, List<Class<? extends FlutterPlugin>>> routePlugins = new HashMap<>();
+        private boolean messageMetrics = false;
+        private int outboundQueueCapacity = DEFAULT_OUTBOUND_QUEUE_CAPACITY;
+        private OutboundOverflowPolicy outboundOverflowPolicy = OutboundOverflowPolicy.COALESCE_BY_KEY;
+        private int maxLiveContainers = 0;
+        private boolean snapshotPlaceholder = false;
         private String[] shellArgs;
 
         public Builder() {
@@ -88,6 +225,123 @@ public class FlutterBoostSetupOptions {
             return this;
         }
 
+        // Determines whether the engine is created asynchronously. When enabled, the
+        // Flutter loader is initialized off the main thread, the engine is created
+        // once the main thread is idle, and calls made before that are queued.
+        public Builder asyncSetup(boolean async) {
+            asyncSetup = async;
+            return this;
+        }
+
+        // Destroys an engine once it has had no container for the given time.
+        // The engine is recreated on the next open(). 0 disables the timeout.
+        public Builder engineIdleTimeout(long millis) {
+            engineIdleTimeout = millis;
+            return this;
+        }
+
+        // Destroys idle engines when onTrimMemory reports at least this level,
+        // e.g. ComponentCallbacks2.TRIM_MEMORY_BACKGROUND. 0 disables it.
+        public Builder engineTrimMemoryLevel(int level) {
+            engineTrimMemoryLevel = level;
+            return this;
+        }
+
+        // Hard cap on live engines. Idle engines are destroyed first to make
+        // room for a new one. 0 means unlimited.
+        public Builder maxEngineCount(int count) {
+            maxEngineCount = count;
+            return this;
+        }
+
+        // Routes that are built offstage as soon as the dart side is ready, so the
+        // first open of these pages without arguments reveals the built page.
+        // Only routes accepted by FlutterBoostApp.canPrewarm on the dart side are built.
+        public Builder prewarmRoutes(List<String> routes) {
+            prewarmRoutes = routes != null ? new ArrayList<>(routes) : new ArrayList<>();
+            return this;
+        }
+
+        // Prewarms the given number of most frequently opened routes, learned
+        // from previous opens, once the main looper is idle after startup.
+        public Builder predictivePrewarmCount(int count) {
+            predictivePrewarmCount = count;
+            return this;
+        }
+
+        // Bounds the wall time the dart side spends on prewarming. 0 means unlimited.
+        public Builder prewarmTimeBudget(long millis) {
+            prewarmTimeBudget = millis;
+            return this;
+        }
+
+        // Estimated memory one prewarmed page holds. Predictive prewarming builds at
+        // most (available memory above the low-memory threshold) / bytes pages, and
+        // none on low-RAM devices. 0 disables the memory budget.
+        public Builder prewarmMemoryPerRoute(long bytes) {
+            prewarmMemoryPerRoute = bytes;
+            return this;
+        }
+
+        // Determines whether plugins are registered lazily. When enabled, engines only
+        // register FlutterBoostPlugin and eagerPlugins at creation time; the plugins
+        // listed in routePlugins are registered when a container of that route is
+        // created, and a route without an entry registers every generated plugin.
+        public Builder deferPluginRegistration(boolean defer) {
+            deferPluginRegistration = defer;
+            return this;
+        }
+
+        // Plugins registered as soon as an engine is created in deferred mode.
+        public Builder eagerPlugins(List<Class<? extends FlutterPlugin>> plugins) {
+            eagerPlugins = plugins != null ? new ArrayList<>(plugins) : new ArrayList<>();
+            return this;
+        }
+
+        // Plugins the given page needs, registered before its first container is created.
+        public Builder routePlugins(String pageName, List<Class<? extends FlutterPlugin>> plugins) {
+            routePlugins.put(pageName, plugins != null ? new ArrayList<>(plugins) : new ArrayList<>());
+            return this;
+        }
+
+        // Records counts, sizes and latencies of the messages between native and flutter
+        // per channel and per event key, see FlutterBoost.getMessageMetrics().
+        public Builder messageMetrics(boolean enabled) {
+            messageMetrics = enabled;
+            return this;
+        }
+
+        // Messages to flutter sent before its FlutterBoostApp reports app_ready are queued and
+        // sent in order once it does. Bounds that queue, see outboundOverflowPolicy. Route,
+        // transition and request/response messages are never dropped and may exceed it.
+        public Builder outboundQueueCapacity(int capacity) {
+            outboundQueueCapacity = capacity;
+            return this;
+        }
+
+        // What to drop once the queue of messages sent before app_ready is full.
+        public Builder outboundOverflowPolicy(OutboundOverflowPolicy policy) {
+            outboundOverflowPolicy = policy;
+            return this;
+        }
+
+        // Keeps at most this many recently shown containers fully alive. Older ones
+        // release their FlutterView surface and flutter side pages, and rebuild them
+        // when they are shown again. 0 means unlimited.
+        public Builder maxLiveContainers(int count) {
+            maxLiveContainers = count;
+            return this;
+        }
+
+        // Shows a bitmap of the last frame over a container when it detaches from the
+        // engine, until it reattaches and renders a new frame. Avoids blank containers
+        // during transitions at the cost of one frame readback per detach. Surface mode
+        // containers are blank while detached, so enable this when using RenderMode.surface.
+        public Builder snapshotPlaceholder(boolean enabled) {
+            snapshotPlaceholder = enabled;
+            return this;
+        }
+
         public FlutterBoostSetupOptions build() {
             FlutterBoostSetupOptions options = new FlutterBoostSetupOptions(this);
             return options;
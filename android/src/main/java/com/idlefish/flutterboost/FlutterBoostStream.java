@@ -0,0 +1,106 @@
+package com.idlefish.flutterboost;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 原生发给 flutter 的连续数据，例如播放进度、实时价格、传感器数据，通过 FlutterBoost.openStream 创建
+ * <p>
+ * write 把数据写进预先分配好的环形缓冲区，每个 vsync 把缓冲区中的数据作为一批发给订阅了的 flutter 容器，
+ * flutter 侧通过 BoostChannel.subscribeStream 拿到 Stream。订阅的容器都不可见时不发送，
+ * 缓冲区满了覆盖最早的数据，等容器重新显示后发出最近的 capacity 条。
+ * <p>
+ * write 可以在任意线程调用，value 需要是 StandardMessageCodec 支持的类型。
+ */
+public class FlutterBoostStream {
+    private final String name;
+    private final Object[] ring;
+    private final FlutterBoostStreams streams;
+    // 下一个读的位置和缓冲区中的数据条数
+    private int head = 0;
+    private int count = 0;
+    private long droppedCount = 0;
+    private boolean closed = false;
+
+    /*package*/ FlutterBoostStream(String name, int capacity, FlutterBoostStreams streams) {
+        this.name = name;
+        this.ring = new Object[capacity];
+        this.streams = streams;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Writes a value, overwriting the oldest unsent one if the buffer is full.
+     */
+    public void write(Object value) {
+        boolean wasEmpty;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            wasEmpty = count == 0;
+            if (count == ring.length) {
+                ring[head] = value;
+                head = (head + 1) % ring.length;
+                droppedCount++;
+            } else {
+                ring[(head + count) % ring.length] = value;
+                count++;
+            }
+        }
+        if (wasEmpty) {
+            streams.onStreamWritten(this);
+        }
+    }
+
+    /**
+     * Gets the number of values overwritten before they were sent.
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Closes the stream, the flutter side subscriptions receive done.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            clear();
+        }
+        streams.onStreamClosed(this);
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 取出缓冲区中的所有数据，追加到 out
+     */
+    /*package*/ synchronized void drainTo(List<Object> out) {
+        for (int i = 0; i < count; i++) {
+            int index = (head + i) % ring.length;
+            out.add(ring[index]);
+            ring[index] = null;
+        }
+        head = 0;
+        count = 0;
+    }
+
+    /*package*/ synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    private void clear() {
+        Arrays.fill(ring, null);
+        head = 0;
+        count = 0;
+    }
+}
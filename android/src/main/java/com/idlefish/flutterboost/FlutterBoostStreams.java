@@ -0,0 +1,206 @@
+package com.idlefish.flutterboost;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理 FlutterBoostStream 和 flutter 侧的订阅
+ * <p>
+ * flutter 侧订阅时发送 STREAM_SUBSCRIBE_KEY 事件 {"name", "id", "uniqueId"}，取消时发送 STREAM_UNSUBSCRIBE_KEY 事件 {"id"}，
+ * 原生每个 vsync 给每个引擎发一次 STREAM_BATCH_KEY 事件 {"name", "subscribers": [id...], "values": [...]}，
+ * 只发给所在容器可见的订阅。除了 FlutterBoostStream 的写入，都在主线程。
+ */
+class FlutterBoostStreams implements Choreographer.FrameCallback {
+    static final String STREAM_NAME = "name";
+    static final String SUBSCRIPTION_ID = "id";
+    static final String SUBSCRIPTION_UNIQUE_ID = "uniqueId";
+    static final String BATCH_SUBSCRIBERS = "subscribers";
+    static final String BATCH_VALUES = "values";
+    static final String BATCH_DONE = "done";
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, FlutterBoostStream> streams = new ConcurrentHashMap<>();
+    // stream name -> 订阅
+    private final Map<String, List<Subscription>> subscriptions = new HashMap<>();
+    private final Set<String> visibleContainers = new HashSet<>();
+    private boolean frameScheduled = false;
+
+    private static class Subscription {
+        final String engineId;
+        final Object id;
+        final String uniqueId;
+
+        Subscription(String engineId, Object id, String uniqueId) {
+            this.engineId = engineId;
+            this.id = id;
+            this.uniqueId = uniqueId;
+        }
+    }
+
+    FlutterBoostStream open(String name, int capacity) {
+        synchronized (streams) {
+            FlutterBoostStream stream = streams.get(name);
+            if (stream == null || stream.isClosed()) {
+                stream = new FlutterBoostStream(name, capacity, this);
+                streams.put(name, stream);
+            }
+            return stream;
+        }
+    }
+
+    /**
+     * 从空变为非空时调用，可能在任意线程
+     */
+    void onStreamWritten(FlutterBoostStream stream) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleFrameIfNeeded(stream);
+        } else {
+            handler.post(() -> scheduleFrameIfNeeded(stream));
+        }
+    }
+
+    void onStreamClosed(FlutterBoostStream stream) {
+        handler.post(() -> {
+            streams.remove(stream.getName(), stream);
+            List<Subscription> subs = subscriptions.remove(stream.getName());
+            if (subs != null) {
+                Map<Object, Object> batch = new HashMap<>();
+                batch.put(BATCH_DONE, true);
+                send(stream.getName(), subs, batch);
+            }
+        });
+    }
+
+    void onSubscribe(String engineId, Map<Object, Object> args) {
+        String name = (String) args.get(STREAM_NAME);
+        List<Subscription> subs = subscriptions.get(name);
+        if (subs == null) {
+            subs = new ArrayList<>();
+            subscriptions.put(name, subs);
+        }
+        subs.add(new Subscription(engineId, args.get(SUBSCRIPTION_ID), (String) args.get(SUBSCRIPTION_UNIQUE_ID)));
+        FlutterBoostStream stream = streams.get(name);
+        if (stream != null) {
+            scheduleFrameIfNeeded(stream);
+        }
+    }
+
+    void onUnsubscribe(String engineId, Map<Object, Object> args) {
+        Object id = args.get(SUBSCRIPTION_ID);
+        removeSubscriptions(sub -> sub.engineId.equals(engineId) && sub.id.equals(id));
+    }
+
+    void onContainerShown(String uniqueId) {
+        visibleContainers.add(uniqueId);
+        for (FlutterBoostStream stream : streams.values()) {
+            scheduleFrameIfNeeded(stream);
+        }
+    }
+
+    void onContainerHidden(String uniqueId) {
+        visibleContainers.remove(uniqueId);
+    }
+
+    void onContainerDestroyed(String uniqueId) {
+        visibleContainers.remove(uniqueId);
+        removeSubscriptions(sub -> uniqueId.equals(sub.uniqueId));
+    }
+
+    void onEngineDestroyed(String engineId) {
+        removeSubscriptions(sub -> sub.engineId.equals(engineId));
+    }
+
+    private interface Filter {
+        boolean matches(Subscription sub);
+    }
+
+    private void removeSubscriptions(Filter filter) {
+        for (Iterator<List<Subscription>> it = subscriptions.values().iterator(); it.hasNext(); ) {
+            List<Subscription> subs = it.next();
+            for (Iterator<Subscription> subIt = subs.iterator(); subIt.hasNext(); ) {
+                if (filter.matches(subIt.next())) {
+                    subIt.remove();
+                }
+            }
+            if (subs.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private List<Subscription> visibleSubscriptions(String name) {
+        List<Subscription> result = new ArrayList<>();
+        List<Subscription> subs = subscriptions.get(name);
+        if (subs != null) {
+            for (Subscription sub : subs) {
+                if (visibleContainers.contains(sub.uniqueId)) {
+                    result.add(sub);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void scheduleFrameIfNeeded(FlutterBoostStream stream) {
+        if (frameScheduled || stream.isEmpty() || visibleSubscriptions(stream.getName()).isEmpty()) {
+            return;
+        }
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        for (FlutterBoostStream stream : streams.values()) {
+            if (stream.isEmpty()) {
+                continue;
+            }
+            List<Subscription> subs = visibleSubscriptions(stream.getName());
+            if (subs.isEmpty()) {
+                // 没有可见的订阅，数据留在缓冲区中
+                continue;
+            }
+            List<Object> values = new ArrayList<>();
+            stream.drainTo(values);
+            Map<Object, Object> batch = new HashMap<>();
+            batch.put(BATCH_VALUES, values);
+            send(stream.getName(), subs, batch);
+        }
+    }
+
+    /**
+     * 按引擎分组发送，每个引擎一条消息
+     */
+    private void send(String name, List<Subscription> subs, Map<Object, Object> batch) {
+        Map<String, List<Object>> idsByEngine = new HashMap<>();
+        for (Subscription sub : subs) {
+            List<Object> ids = idsByEngine.get(sub.engineId);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                idsByEngine.put(sub.engineId, ids);
+            }
+            ids.add(sub.id);
+        }
+        for (Map.Entry<String, List<Object>> entry : idsByEngine.entrySet()) {
+            if (FlutterBoost.instance().getEngine(entry.getKey()) == null) {
+                continue;
+            }
+            Map<Object, Object> args = new HashMap<>(batch);
+            args.put(STREAM_NAME, name);
+            args.put(BATCH_SUBSCRIBERS, entry.getValue());
+            FlutterBoost.instance().getPlugin(entry.getKey())
+                    .sendEventToFlutter(FlutterBoost.STREAM_BATCH_KEY, args);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.idlefish.flutterboost;
+
+import java.nio.ByteBuffer;
+
+import io.flutter.plugin.common.BinaryMessenger;
+
+/**
+ * 包装引擎的 BinaryMessenger，把经过的消息记到 MessageMetrics 中
+ * <p>
+ * 事件消息的 key 在编码后的数据里，解码代价太大，所以由发送/处理事件的地方调用 tagSentEvent/tagReceivedEvent 标记当前这条消息。
+ * 消息的发送和处理都在主线程，标记只对紧接着发送或正在处理的那一条有效。
+ */
+class InstrumentedBinaryMessenger implements BinaryMessenger {
+    private final BinaryMessenger messenger;
+    private final MessageMetrics metrics;
+    private String sentEventKey;
+    private String receivedEventKey;
+
+    InstrumentedBinaryMessenger(BinaryMessenger messenger, MessageMetrics metrics) {
+        this.messenger = messenger;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 标记下一条发出的消息是 key 对应的事件
+     */
+    void tagSentEvent(String key) {
+        sentEventKey = key;
+    }
+
+    /**
+     * 标记正在处理的消息是 key 对应的事件
+     */
+    void tagReceivedEvent(String key) {
+        receivedEventKey = key;
+    }
+
+    @Override
+    public void send(String channel, ByteBuffer message) {
+        send(channel, message, null);
+    }
+
+    @Override
+    public void send(String channel, ByteBuffer message, BinaryReply callback) {
+        // 编码后的消息 position 就是长度
+        int bytes = message != null ? message.position() : 0;
+        String key = sentEventKey;
+        sentEventKey = null;
+        if (key != null) {
+            metrics.onEventSent(key, bytes);
+        }
+        if (callback == null) {
+            metrics.onChannelMessage(channel, bytes, -1);
+            messenger.send(channel, message, null);
+            return;
+        }
+        long start = System.nanoTime();
+        messenger.send(channel, message, reply -> {
+            metrics.onChannelMessage(channel, bytes, System.nanoTime() - start);
+            callback.reply(reply);
+        });
+    }
+
+    @Override
+    public void setMessageHandler(String channel, BinaryMessageHandler handler) {
+        if (handler == null) {
+            messenger.setMessageHandler(channel, null);
+            return;
+        }
+        messenger.setMessageHandler(channel, (message, reply) -> {
+            int bytes = message != null ? message.remaining() : 0;
+            long start = System.nanoTime();
+            receivedEventKey = null;
+            boolean[] replied = {false};
+            handler.onMessage(message, result -> {
+                if (!replied[0]) {
+                    replied[0] = true;
+                    long latency = System.nanoTime() - start;
+                    metrics.onChannelMessage(channel, bytes, latency);
+                    String key = receivedEventKey;
+                    receivedEventKey = null;
+                    if (key != null) {
+                        metrics.onEventReceived(key, bytes, latency);
+                    }
+                }
+                reply.reply(result);
+            });
+        });
+    }
+}
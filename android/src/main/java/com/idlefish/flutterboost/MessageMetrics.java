@@ -0,0 +1,197 @@
+package com.idlefish.flutterboost;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 原生和 flutter 之间消息的统计，打开 FlutterBoostSetupOptions.messageMetrics 后生效
+ * <p>
+ * 按 channel 统计消息数、字节数和耗时，sendEventToFlutter/sendEventToNative 的事件再按 key 单独统计。
+ * 耗时只对有回复的消息记录：原生发出的消息是发送到收到回复的时间，flutter 发来的消息是原生处理到回复的时间。
+ * 耗时按 2 的幂（微秒）分桶，记录一次只是几个计数器加一，可以在线上一直打开。
+ * 所有引擎的消息合并统计。
+ */
+public class MessageMetrics {
+    // 第 i 个桶是 [2^i, 2^(i+1)) 微秒，最后一个桶包含更长的耗时
+    private static final int BUCKETS = 32;
+
+    private final Map<String, Counter> channels = new HashMap<>();
+    private final Map<String, Counter> sentEvents = new HashMap<>();
+    private final Map<String, Counter> receivedEvents = new HashMap<>();
+
+    private static class Counter {
+        long count;
+        long bytes;
+        final long[] latencyBuckets = new long[BUCKETS];
+
+        void add(int bytes, long latencyNanos) {
+            count++;
+            this.bytes += bytes;
+            if (latencyNanos >= 0) {
+                latencyBuckets[bucket(latencyNanos / 1000)]++;
+            }
+        }
+    }
+
+    private static int bucket(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * latencyNanos 小于 0 表示没有回复
+     */
+    /*package*/ synchronized void onChannelMessage(String channel, int bytes, long latencyNanos) {
+        counter(channels, channel).add(bytes, latencyNanos);
+    }
+
+    /*package*/ synchronized void onEventSent(String key, int bytes) {
+        counter(sentEvents, key).add(bytes, -1);
+    }
+
+    /*package*/ synchronized void onEventReceived(String key, int bytes, long latencyNanos) {
+        counter(receivedEvents, key).add(bytes, latencyNanos);
+    }
+
+    private static Counter counter(Map<String, Counter> table, String name) {
+        Counter counter = table.get(name);
+        if (counter == null) {
+            counter = new Counter();
+            table.put(name, counter);
+        }
+        return counter;
+    }
+
+    /**
+     * Copies the current numbers, the snapshot does not change afterwards.
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(copy(channels), copy(sentEvents), copy(receivedEvents));
+    }
+
+    /**
+     * Clears all numbers.
+     */
+    public synchronized void reset() {
+        channels.clear();
+        sentEvents.clear();
+        receivedEvents.clear();
+    }
+
+    private static Map<String, Stats> copy(Map<String, Counter> table) {
+        Map<String, Stats> result = new HashMap<>();
+        for (Map.Entry<String, Counter> entry : table.entrySet()) {
+            Counter counter = entry.getValue();
+            result.put(entry.getKey(), new Stats(counter.count, counter.bytes, counter.latencyBuckets.clone()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * The numbers of one channel or event key.
+     */
+    public static final class Stats {
+        private final long count;
+        private final long bytes;
+        private final long[] latencyBuckets;
+        private final long latencyCount;
+
+        private Stats(long count, long bytes, long[] latencyBuckets) {
+            this.count = count;
+            this.bytes = bytes;
+            this.latencyBuckets = latencyBuckets;
+            long latencyCount = 0;
+            for (long n : latencyBuckets) {
+                latencyCount += n;
+            }
+            this.latencyCount = latencyCount;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets the number of messages whose latency was recorded.
+         */
+        public long getLatencyCount() {
+            return latencyCount;
+        }
+
+        /**
+         * Gets the upper bound in microseconds of the bucket holding the given percentile (0-100),
+         * or -1 if no latency was recorded.
+         */
+        public long getLatencyPercentile(int percent) {
+            if (latencyCount == 0) {
+                return -1;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * latencyCount));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += latencyBuckets[i];
+                if (seen >= rank) {
+                    return 1L << (i + 1);
+                }
+            }
+            return 1L << BUCKETS;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", bytes=" + bytes
+                    + ", latency[p50=" + getLatencyPercentile(50)
+                    + "us, p90=" + getLatencyPercentile(90)
+                    + "us, p99=" + getLatencyPercentile(99) + "us]";
+        }
+    }
+
+    /**
+     * The numbers of all channels and event keys at one point in time.
+     */
+    public static final class Snapshot {
+        private final Map<String, Stats> channels;
+        private final Map<String, Stats> sentEvents;
+        private final Map<String, Stats> receivedEvents;
+
+        private Snapshot(Map<String, Stats> channels, Map<String, Stats> sentEvents,
+                         Map<String, Stats> receivedEvents) {
+            this.channels = channels;
+            this.sentEvents = sentEvents;
+            this.receivedEvents = receivedEvents;
+        }
+
+        /**
+         * Gets the stats keyed by channel name, e.g. "dev.flutter.pigeon.FlutterRouterApi.pushRoute".
+         */
+        public Map<String, Stats> getChannels() {
+            return channels;
+        }
+
+        /**
+         * Gets the stats of the events sent to flutter, keyed by event key.
+         */
+        public Map<String, Stats> getSentEvents() {
+            return sentEvents;
+        }
+
+        /**
+         * Gets the stats of the events received from flutter, keyed by event key.
+         */
+        public Map<String, Stats> getReceivedEvents() {
+            return receivedEvents;
+        }
+
+        @Override
+        public String toString() {
+            return "channels:" + channels + ", sentEvents:" + sentEvents + ", receivedEvents:" + receivedEvents;
+        }
+    }
+}
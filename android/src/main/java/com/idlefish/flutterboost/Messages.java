@@ -1,8 +1,12 @@
 // Autogenerated from Pigeon (v0.1.23), do not edit directly.
+// FlutterRouterApi (cached channels) is hand-written, and the channels use BoostMessageCodec
+// instead of StandardMessageCodec, keep both when regenerating.
 // See also: https://pub.dev/packages/pigeon
 
 package com.idlefish.flutterboost;
 
+import android.os.Looper;
+
 import io.flutter.plugin.common.BasicMessageChannel;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.StandardMessageCodec;
@@ -81,6 +85,10 @@ public class Messages {
             return toMapResult;
         }
 
+        static CommonParams decode(Object message) {
+            return message instanceof CommonParams ? (CommonParams) message : fromMap((Map<String, Object>) message);
+        }
+
         static CommonParams fromMap(Map<String, Object> map) {
             CommonParams fromMapResult = new CommonParams();
             Object pageName = map.get("pageName");
@@ -128,6 +136,10 @@ public class Messages {
             return toMapResult;
         }
 
+        static StackInfo decode(Object message) {
+            return message instanceof StackInfo ? (StackInfo) message : fromMap((Map<String, Object>) message);
+        }
+
         static StackInfo fromMap(Map<String, Object> map) {
             StackInfo fromMapResult = new StackInfo();
             Object containers = map.get("containers");
@@ -144,95 +156,128 @@ public class Messages {
      * 原生 调用  flutter 的 BasicMessageChannel
      */
     public static class FlutterRouterApi {
+        // 所有 channel 共用一个 codec
+        private static final BoostMessageCodec CODEC = BoostMessageCodec.INSTANCE;
         private final BinaryMessenger binaryMessenger;
+        // channel 只在构造时创建一次，每次发送不再新建 BasicMessageChannel
+        private final BasicMessageChannel<Object> pushRouteChannel;
+        private final BasicMessageChannel<Object> popRouteChannel;
+        private final BasicMessageChannel<Object> removeRouteChannel;
+        private final BasicMessageChannel<Object> onForegroundChannel;
+        private final BasicMessageChannel<Object> onBackgroundChannel;
+        private final BasicMessageChannel<Object> onNativeResultChannel;
+        private final BasicMessageChannel<Object> onContainerShowChannel;
+        private final BasicMessageChannel<Object> onContainerHideChannel;
+        private final BasicMessageChannel<Object> sendEventToFlutterChannel;
+        // send 时 codec 同步编码，发送完即可复用，只在主线程上复用，其他线程每次新建
+        private final CommonParams reusableParams = new CommonParams();
 
         public FlutterRouterApi(BinaryMessenger argBinaryMessenger) {
             this.binaryMessenger = argBinaryMessenger;
+            this.pushRouteChannel = createChannel("pushRoute");
+            this.popRouteChannel = createChannel("popRoute");
+            this.removeRouteChannel = createChannel("removeRoute");
+            this.onForegroundChannel = createChannel("onForeground");
+            this.onBackgroundChannel = createChannel("onBackground");
+            this.onNativeResultChannel = createChannel("onNativeResult");
+            this.onContainerShowChannel = createChannel("onContainerShow");
+            this.onContainerHideChannel = createChannel("onContainerHide");
+            this.sendEventToFlutterChannel = createChannel("sendEventToFlutter");
+        }
+
+        private BasicMessageChannel<Object> createChannel(String method) {
+            return new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi." + method, CODEC);
         }
 
         public interface Reply<T> {
             void reply(T reply);
         }
 
+        /**
+         * 把参数填进 CommonParams 发送，callback 为 null 时不等待 flutter 侧的回复
+         */
+        private void send(BasicMessageChannel<Object> channel, String pageName, String uniqueId,
+                          Map<Object, Object> arguments, Boolean opaque, String key, Reply<Void> callback) {
+            boolean reuse = Looper.myLooper() == Looper.getMainLooper();
+            CommonParams params = reuse ? reusableParams : new CommonParams();
+            params.pageName = pageName;
+            params.uniqueId = uniqueId;
+            params.arguments = arguments;
+            params.opaque = opaque;
+            params.key = key;
+            try {
+                if (callback == null) {
+                    channel.send(params, null);
+                } else {
+                    channel.send(params, channelReply -> {
+                        callback.reply(null);
+                    });
+                }
+            } finally {
+                // 不持有调用方的 arguments
+                if (reuse) {
+                    reusableParams.arguments = null;
+                }
+            }
+        }
+
+        private void send(BasicMessageChannel<Object> channel, CommonParams argInput, Reply<Void> callback) {
+            send(channel, argInput.getPageName(), argInput.getUniqueId(), argInput.getArguments(),
+                    argInput.getOpaque(), argInput.getKey(), callback);
+        }
+
         public void pushRoute(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.pushRoute", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(pushRouteChannel, argInput, callback);
         }
 
         public void popRoute(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.popRoute", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(popRouteChannel, argInput, callback);
         }
 
         public void removeRoute(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.removeRoute", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(removeRouteChannel, argInput, callback);
         }
 
         public void onForeground(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.onForeground", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(onForegroundChannel, argInput, callback);
         }
 
         public void onBackground(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.onBackground", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(onBackgroundChannel, argInput, callback);
         }
 
         public void onNativeResult(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.onNativeResult", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(onNativeResultChannel, argInput, callback);
         }
 
         public void onContainerShow(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.onContainerShow", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(onContainerShowChannel, argInput, callback);
         }
 
         public void onContainerHide(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.onContainerHide", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(onContainerHideChannel, argInput, callback);
         }
 
         public void sendEventToFlutter(CommonParams argInput, Reply<Void> callback) {
-            BasicMessageChannel<Object> channel =
-                    new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.FlutterRouterApi.sendEventToFlutter", new StandardMessageCodec());
-            Map<String, Object> inputMap = argInput.toMap();
-            channel.send(inputMap, channelReply -> {
-                callback.reply(null);
-            });
+            send(sendEventToFlutterChannel, argInput, callback);
+        }
+
+        /**
+         * Sends an event without allocating a CommonParams or waiting for a reply.
+         */
+        public void sendEventToFlutter(String key, Map<Object, Object> arguments) {
+            send(sendEventToFlutterChannel, null, null, arguments, null, key, null);
+        }
+
+        /**
+         * Sends onContainerShow/onContainerHide without allocating a CommonParams or waiting for a reply.
+         */
+        public void onContainerShow(String uniqueId) {
+            send(onContainerShowChannel, null, uniqueId, null, null, null, null);
+        }
+
+        public void onContainerHide(String uniqueId) {
+            send(onContainerHideChannel, null, uniqueId, null, null, null, null);
         }
     }
 
@@ -260,13 +305,13 @@ public class Messages {
         static void setup(BinaryMessenger binaryMessenger, NativeRouterApi api) {
             {
                 BasicMessageChannel<Object> channel =
-                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.pushNativeRoute", new StandardMessageCodec());
+                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.pushNativeRoute", BoostMessageCodec.INSTANCE);
                 if (api != null) {
                     channel.setMessageHandler((message, reply) -> {
                         Map<String, Object> wrapped = new HashMap<>();
                         try {
                             @SuppressWarnings("ConstantConditions")
-                            CommonParams input = CommonParams.fromMap((Map<String, Object>) message);
+                            CommonParams input = CommonParams.decode(message);
                             api.pushNativeRoute(input);
                             wrapped.put("result", null);
                         } catch (Error | RuntimeException exception) {
@@ -280,13 +325,13 @@ public class Messages {
             }
             {
                 BasicMessageChannel<Object> channel =
-                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.pushFlutterRoute", new StandardMessageCodec());
+                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.pushFlutterRoute", BoostMessageCodec.INSTANCE);
                 if (api != null) {
                     channel.setMessageHandler((message, reply) -> {
                         Map<String, Object> wrapped = new HashMap<>();
                         try {
                             @SuppressWarnings("ConstantConditions")
-                            CommonParams input = CommonParams.fromMap((Map<String, Object>) message);
+                            CommonParams input = CommonParams.decode(message);
                             api.pushFlutterRoute(input);
                             wrapped.put("result", null);
                         } catch (Error | RuntimeException exception) {
@@ -300,13 +345,13 @@ public class Messages {
             }
             {
                 BasicMessageChannel<Object> channel =
-                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.popRoute", new StandardMessageCodec());
+                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.popRoute", BoostMessageCodec.INSTANCE);
                 if (api != null) {
                     channel.setMessageHandler((message, reply) -> {
                         Map<String, Object> wrapped = new HashMap<>();
                         try {
                             @SuppressWarnings("ConstantConditions")
-                            CommonParams input = CommonParams.fromMap((Map<String, Object>) message);
+                            CommonParams input = CommonParams.decode(message);
                             api.popRoute(input);
                             wrapped.put("result", null);
                         } catch (Error | RuntimeException exception) {
@@ -320,13 +365,13 @@ public class Messages {
             }
             {
                 BasicMessageChannel<Object> channel =
-                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.getStackFromHost", new StandardMessageCodec());
+                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.getStackFromHost", BoostMessageCodec.INSTANCE);
                 if (api != null) {
                     channel.setMessageHandler((message, reply) -> {
                         Map<String, Object> wrapped = new HashMap<>();
                         try {
                             StackInfo output = api.getStackFromHost();
-                            wrapped.put("result", output.toMap());
+                            wrapped.put("result", output);
                         } catch (Error | RuntimeException exception) {
                             wrapped.put("error", wrapError(exception));
                         }
@@ -338,13 +383,13 @@ public class Messages {
             }
             {
                 BasicMessageChannel<Object> channel =
-                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.saveStackToHost", new StandardMessageCodec());
+                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.saveStackToHost", BoostMessageCodec.INSTANCE);
                 if (api != null) {
                     channel.setMessageHandler((message, reply) -> {
                         Map<String, Object> wrapped = new HashMap<>();
                         try {
                             @SuppressWarnings("ConstantConditions")
-                            StackInfo input = StackInfo.fromMap((Map<String, Object>) message);
+                            StackInfo input = StackInfo.decode(message);
                             api.saveStackToHost(input);
                             wrapped.put("result", null);
                         } catch (Error | RuntimeException exception) {
@@ -358,13 +403,13 @@ public class Messages {
             }
             {
                 BasicMessageChannel<Object> channel =
-                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.sendEventToNative", new StandardMessageCodec());
+                        new BasicMessageChannel<>(binaryMessenger, "dev.flutter.pigeon.NativeRouterApi.sendEventToNative", BoostMessageCodec.INSTANCE);
                 if (api != null) {
                     channel.setMessageHandler((message, reply) -> {
                         Map<String, Object> wrapped = new HashMap<>();
                         try {
                             @SuppressWarnings("ConstantConditions")
-                            CommonParams input = CommonParams.fromMap((Map<String, Object>) message);
+                            CommonParams input = CommonParams.decode(message);
                             api.sendEventToNative(input);
                             wrapped.put("result", null);
                         } catch (Error | RuntimeException exception) {
@@ -0,0 +1,141 @@
+package com.idlefish.flutterboost;
+
+import android.util.Log;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * flutter 侧 FlutterBoostApp 还没有准备好（没有收到 app_ready）时发给 flutter 的消息，准备好后按顺序一次性发出
+ * <p>
+ * 队列有容量上限，满了之后按 OutboundOverflowPolicy 丢弃带 key 的消息。
+ * 没有 key 的消息（路由、容器切换、请求和响应）丢了会导致两侧状态不一致，任何时候都不丢弃，必要时超出容量。
+ * 只能在主线程使用。
+ */
+public class OutboundMessageQueue {
+    private static final String TAG = OutboundMessageQueue.class.getSimpleName();
+
+    private final int capacity;
+    private final OutboundOverflowPolicy policy;
+    private final LinkedList<Message> messages = new LinkedList<>();
+    private long queuedCount = 0;
+    private long flushedCount = 0;
+    private long droppedCount = 0;
+
+    private static class Message {
+        // 同一类消息的 key，null 表示不能合并也不能丢弃
+        final String coalesceKey;
+        final Runnable send;
+
+        Message(String coalesceKey, Runnable send) {
+            this.coalesceKey = coalesceKey;
+            this.send = send;
+        }
+    }
+
+    /*package*/ OutboundMessageQueue(int capacity, OutboundOverflowPolicy policy) {
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy != null ? policy : OutboundOverflowPolicy.COALESCE_BY_KEY;
+    }
+
+    /**
+     * 缓存一条消息，返回 false 表示队列满了，丢弃了这条消息
+     *
+     * @param coalesceKey 同一类消息的 key，null 表示不能合并也不能丢弃
+     */
+    /*package*/ boolean offer(String coalesceKey, Runnable send) {
+        if (messages.size() >= capacity && !makeRoom(coalesceKey)) {
+            if (coalesceKey != null) {
+                droppedCount++;
+                Log.w(TAG, "#offer: queue is full, rejected " + coalesceKey);
+                return false;
+            }
+            Log.w(TAG, "#offer: queue is full, keeps a message without key, size: " + messages.size());
+        }
+        messages.add(new Message(coalesceKey, send));
+        queuedCount++;
+        return true;
+    }
+
+    /**
+     * 按 policy 丢弃一条已经缓存的、带 key 的消息
+     */
+    private boolean makeRoom(String coalesceKey) {
+        if (policy == OutboundOverflowPolicy.REJECT) {
+            return false;
+        }
+        if ((policy == OutboundOverflowPolicy.COALESCE_BY_KEY && coalesceKey != null && removeOldest(coalesceKey))
+                || removeOldest(null)) {
+            droppedCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 移除最早的 key 为 coalesceKey 的消息，coalesceKey 为 null 时移除最早的带 key 的消息
+     */
+    private boolean removeOldest(String coalesceKey) {
+        for (Iterator<Message> it = messages.iterator(); it.hasNext(); ) {
+            String key = it.next().coalesceKey;
+            if (key != null && (coalesceKey == null || coalesceKey.equals(key))) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按顺序发出所有缓存的消息
+     */
+    /*package*/ void flush() {
+        while (!messages.isEmpty()) {
+            Message message = messages.removeFirst();
+            flushedCount++;
+            message.send.run();
+        }
+    }
+
+    /**
+     * 引擎销毁了，缓存的消息都丢弃
+     */
+    /*package*/ void clear() {
+        droppedCount += messages.size();
+        messages.clear();
+    }
+
+    /**
+     * Gets the number of messages waiting for the flutter side to be ready.
+     */
+    public int size() {
+        return messages.size();
+    }
+
+    /**
+     * Gets the number of messages ever queued.
+     */
+    public long getQueuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * Gets the number of queued messages sent once the flutter side was ready.
+     */
+    public long getFlushedCount() {
+        return flushedCount;
+    }
+
+    /**
+     * Gets the number of messages dropped because the queue was full or the engine went away.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "size:" + size() + ", queued:" + queuedCount + ", flushed:" + flushedCount
+                + ", dropped:" + droppedCount;
+    }
+}
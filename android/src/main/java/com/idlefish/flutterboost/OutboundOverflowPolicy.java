@@ -0,0 +1,17 @@
+package com.idlefish.flutterboost;
+
+/**
+ * flutter 侧还没有准备好时，发给 flutter 的消息缓存在 OutboundMessageQueue 中，队列满了之后的处理方式
+ * <p>
+ * 只有带 key 的消息（事件、onForeground/onBackground、onContainerShow/Hide）可以丢弃，
+ * 路由、容器切换、请求和响应这些没有 key 的消息在任何策略下都不会丢弃，必要时超出容量。
+ */
+public enum OutboundOverflowPolicy {
+    // Drops the oldest queued message that has a key to make room.
+    DROP_OLDEST,
+    // Drops the oldest queued message of the same kind, e.g. an earlier event of the same key
+    // or an earlier onForeground/onBackground, and falls back to DROP_OLDEST if there is none.
+    COALESCE_BY_KEY,
+    // Drops the new message if it has a key.
+    REJECT
+}
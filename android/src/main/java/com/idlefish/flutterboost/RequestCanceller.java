@@ -0,0 +1,8 @@
+package com.idlefish.flutterboost;
+
+/**
+ * Cancels a pending request, its callback will not be invoked afterwards.
+ */
+public interface RequestCanceller {
+    void cancel();
+}
@@ -0,0 +1,93 @@
+package com.idlefish.flutterboost;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * FlutterBoost.setup() 各阶段耗时
+ * <p>
+ * 每个阶段同时包在 android.os.Trace section 中（名称为 "FlutterBoost#" + 阶段名），
+ * 可以在 systrace/perfetto 中看到。Callback.onStart 回调之后即可通过
+ * FlutterBoost.instance().getStartupMetrics() 查询。
+ */
+public class StartupMetrics {
+    public static final String PHASE_LIFECYCLE_REGISTRATION = "lifecycleRegistration";
+    public static final String PHASE_LOADER_INIT = "loaderInit";
+    public static final String PHASE_ENGINE_CREATE = "engineCreate";
+    public static final String PHASE_SET_INITIAL_ROUTE = "setInitialRoute";
+    public static final String PHASE_EXECUTE_DART_ENTRYPOINT = "executeDartEntrypoint";
+    public static final String PHASE_PLUGIN_LOOKUP = "pluginLookup";
+
+    private static final String TRACE_PREFIX = "FlutterBoost#";
+
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private long setupStartTime = -1;
+    private long engineReadyTime = -1;
+    private String currentPhase;
+    private long currentPhaseStartTime;
+
+    /*package*/ void onSetupStart() {
+        setupStartTime = SystemClock.uptimeMillis();
+    }
+
+    /*package*/ void onEngineReady() {
+        engineReadyTime = SystemClock.uptimeMillis();
+    }
+
+    /*package*/ void beginPhase(String phase) {
+        assert (currentPhase == null);
+        currentPhase = phase;
+        currentPhaseStartTime = SystemClock.uptimeMillis();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(TRACE_PREFIX + phase);
+        }
+    }
+
+    /*package*/ void endPhase() {
+        if (currentPhase == null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+        Long previous = phaseMillis.get(currentPhase);
+        long cost = SystemClock.uptimeMillis() - currentPhaseStartTime;
+        phaseMillis.put(currentPhase, previous != null ? previous + cost : cost);
+        currentPhase = null;
+    }
+
+    /**
+     * Gets the time spent in the given phase, or -1 if the phase did not run.
+     */
+    public long getPhaseMillis(String phase) {
+        Long millis = phaseMillis.get(phase);
+        return millis != null ? millis : -1;
+    }
+
+    /**
+     * Gets the time spent in every phase that ran, in execution order.
+     */
+    public Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phaseMillis);
+    }
+
+    /**
+     * Gets the time from entering setup() until the engine is ready, or -1 if it is not ready yet.
+     * In async setup mode this includes the time spent waiting for the loader and the idle main thread.
+     */
+    public long getTotalMillis() {
+        if (setupStartTime < 0 || engineReadyTime < 0) {
+            return -1;
+        }
+        return engineReadyTime - setupStartTime;
+    }
+
+    @Override
+    public String toString() {
+        return "total:" + getTotalMillis() + ", phases:" + phaseMillis;
+    }
+}
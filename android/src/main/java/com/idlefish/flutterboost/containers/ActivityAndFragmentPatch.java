@@ -1,10 +1,21 @@
 package com.idlefish.flutterboost.containers;
 
+import android.graphics.Bitmap;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import com.idlefish.flutterboost.EngineLifecycle;
 import com.idlefish.flutterboost.FlutterBoost;
+import com.idlefish.flutterboost.FlutterBoostPlugin;
+import com.idlefish.flutterboost.FlutterBoostSetupOptions;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import io.flutter.embedding.android.FlutterView;
 import io.flutter.embedding.android.RenderMode;
 import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.renderer.FlutterUiDisplayListener;
 
 /**
  *
@@ -12,30 +23,67 @@ import io.flutter.embedding.engine.FlutterEngine;
  *
  *
  * 在官方ActivityAndFragment的基础上进行补充修复
- * 1.指定getRenderMode 为texture,不然页面切换时候会前后页面会重叠
+ * 1.指定getRenderMode 默认为texture,不然页面切换时候会前后页面会重叠；
+ * 不透明的页面可以单独指定 surface，它 detach 后是空白的，需要打开 snapshotPlaceholder 来避免切换时的空白
  * 2.接管键盘回退事件
  * 3. 把 attachToFlutterEngine，调用时机放到onResume。
  * 4. onPause 时 flutterView.detachFromFlutterEngine()
  * <p>
  * 5. FlutterActivityAndFragmentDelegate 去除flutterEngine.getLifecycleChannel().appIsDetached
  * 6. FlutterActivityAndFragmentDelegate 去除flutterEngine.getLifecycleChannel().appIsPaused
+ * 7. 超过 maxLiveContainers 的后台容器释放 FlutterView 的 surface，回到前台时恢复
+ * 8. 打开 snapshotPlaceholder 时，detach 前截取最后一帧盖在 FlutterView 上，重新 attach 并渲染出新的一帧后移除，
+ * 避免切换时白屏，转场动画也只需要绘制一张静态图片；
+ * FlutterViewAttachScheduler 合并的切换不打开也会截图，进入的页面画出第一帧后移除
  */
 public class ActivityAndFragmentPatch {
-
     /**
-     * 重写 getRenderMode ,boost指定texture
-     *
-     * @return
+     * 容器没有指定渲染模式时使用的默认值：texture
      */
     public static RenderMode getRenderMode() {
         return RenderMode.texture;
     }
 
+    /**
+     * 容器指定的渲染模式，没有指定或者不认识时使用默认的 texture
+     *
+     * @param renderMode RenderMode 的名字
+     */
+    public static RenderMode getRenderMode(String renderMode) {
+        if (renderMode != null) {
+            for (RenderMode mode : RenderMode.values()) {
+                if (mode.name().equals(renderMode)) {
+                    return mode;
+                }
+            }
+        }
+        return getRenderMode();
+    }
+
+    /**
+     * 容器实际使用的渲染模式
+     */
+    public static RenderMode getRenderMode(FlutterViewContainer container) {
+        if (container instanceof FlutterBoostActivity) {
+            return ((FlutterBoostActivity) container).getRenderMode();
+        } else if (container instanceof FlutterBoostFragment) {
+            return ((FlutterBoostFragment) container).getRenderMode();
+        }
+        return getRenderMode();
+    }
+
     /**
      * 重写onBackPressed
      */
     public static void onBackPressed() {
-        FlutterBoost.instance().getPlugin().popRoute(null, null);
+        onBackPressed(FlutterBoost.ENGINE_ID);
+    }
+
+    /**
+     * 重写onBackPressed，交给容器所在引擎处理
+     */
+    public static void onBackPressed(String engineId) {
+        FlutterBoost.instance().getPlugin(engineId).popRoute(null, null);
     }
 
     /**
@@ -50,8 +98,23 @@ public class ActivityAndFragmentPatch {
      * @param
      */
     public static void onResumeAttachToFlutterEngine(FlutterView flutterView, FlutterEngine flutterEngine, FlutterViewContainer container) {
+        // 先执行还在等待的 detach，保证 renderer 最后渲染到这个 flutterView 上
+        FlutterViewAttachScheduler.flush();
+        attachNow(flutterView, flutterEngine, container);
+    }
+
+    /**
+     * 和 onResumeAttachToFlutterEngine 一样，但是合并到下一帧执行，见 FlutterViewAttachScheduler
+     */
+    /*package*/ static void scheduleAttachToFlutterEngine(FlutterView flutterView, FlutterEngine flutterEngine,
+                                                       FlutterViewContainer container) {
+        FlutterViewAttachScheduler.requestAttach(flutterView, flutterEngine, container);
+    }
+
+    /*package*/ static void attachNow(FlutterView flutterView, FlutterEngine flutterEngine, FlutterViewContainer container) {
         flutterView.attachToFlutterEngine(flutterEngine);
-        flutterEngine.getLifecycleChannel().appIsResumed();
+        appIsResumed(flutterEngine);
+        removePlaceholderOnFirstFrame(flutterView, container);
     }
 
 
@@ -61,7 +124,242 @@ public class ActivityAndFragmentPatch {
      * @param flutterView
      */
     public static void onPauseDetachFromFlutterEngine(FlutterView flutterView, FlutterEngine flutterEngine) {
+        onPauseDetachFromFlutterEngine(flutterView, flutterEngine, null);
+    }
+
+    /**
+     * 添加 detachFromFlutterEngine，打开 snapshotPlaceholder 时用最后一帧的截图占位
+     *
+     * @param flutterView
+     * @param container   flutterView 所在的容器
+     */
+    public static void onPauseDetachFromFlutterEngine(FlutterView flutterView, FlutterEngine flutterEngine,
+                                                      FlutterViewContainer container) {
+        FlutterViewAttachScheduler.flush();
+        detachNow(flutterView, flutterEngine, container);
+    }
+
+    /**
+     * 和 onPauseDetachFromFlutterEngine 一样，但是合并到下一帧执行，见 FlutterViewAttachScheduler
+     */
+    /*package*/ static void scheduleDetachFromFlutterEngine(FlutterView flutterView, FlutterEngine flutterEngine,
+                                                         FlutterViewContainer container) {
+        FlutterViewAttachScheduler.requestDetach(flutterView, flutterEngine, container);
+    }
+
+    /*package*/ static void detachNow(FlutterView flutterView, FlutterEngine flutterEngine, FlutterViewContainer container) {
+        detachNow(flutterView, flutterEngine, container, false);
+    }
+
+    /**
+     * @param forcePlaceholder 没有打开 snapshotPlaceholder 也截图占位，FlutterViewAttachScheduler 先 detach 再 attach 时使用，
+     *                         配合 removePlaceholdersOnFirstFrame 盖住离开的容器直到进入的容器画出第一帧
+     */
+    /*package*/ static void detachNow(FlutterView flutterView, FlutterEngine flutterEngine, FlutterViewContainer container,
+                                     boolean forcePlaceholder) {
+        showPlaceholder(flutterView, flutterEngine, container, forcePlaceholder);
         flutterView.detachFromFlutterEngine();
-        flutterEngine.getLifecycleChannel().appIsInactive();
+        appIsInactive(flutterEngine);
+    }
+
+    /**
+     * 通过引擎的 EngineLifecycle 上报 resumed，状态没有变化时不会发消息
+     */
+    /*package*/ static void appIsResumed(FlutterEngine flutterEngine) {
+        EngineLifecycle lifecycle = lifecycleOf(flutterEngine);
+        if (lifecycle != null) {
+            lifecycle.onResumed();
+        } else {
+            flutterEngine.getLifecycleChannel().appIsResumed();
+        }
+    }
+
+    /*package*/ static void appIsInactive(FlutterEngine flutterEngine) {
+        EngineLifecycle lifecycle = lifecycleOf(flutterEngine);
+        if (lifecycle != null) {
+            lifecycle.onInactive();
+        } else {
+            flutterEngine.getLifecycleChannel().appIsInactive();
+        }
+    }
+
+    private static EngineLifecycle lifecycleOf(FlutterEngine flutterEngine) {
+        FlutterBoostPlugin plugin = (FlutterBoostPlugin) flutterEngine.getPlugins().get(FlutterBoostPlugin.class);
+        return plugin != null ? plugin.getLifecycle() : null;
+    }
+
+    /**
+     * detach 之前截取 flutterView 正在显示的最后一帧，作为占位图盖在它上面。
+     * 占位图保存在容器上，跟随容器销毁，没有容器时不占位。
+     * 截图是一张和 FlutterView 一样大的 ARGB_8888 bitmap，每个后台容器最多一张，超过 maxLiveContainers 时随 surface 一起释放
+     */
+    private static void showPlaceholder(FlutterView flutterView, FlutterEngine flutterEngine,
+                                        FlutterViewContainer container, boolean force) {
+        if (container == null || (!force && !isSnapshotPlaceholderEnabled())
+                || !flutterView.isAttachedToFlutterEngine() || !flutterEngine.getRenderer().isDisplayingFlutterUi()) {
+            return;
+        }
+        ViewGroup parent = (ViewGroup) flutterView.getParent();
+        if (parent == null) {
+            return;
+        }
+        Bitmap bitmap = flutterEngine.getRenderer().getBitmap();
+        if (bitmap == null) {
+            return;
+        }
+        ImageView placeholder = getPlaceholder(container);
+        if (placeholder == null) {
+            placeholder = new ImageView(flutterView.getContext());
+            placeholder.setScaleType(ImageView.ScaleType.FIT_XY);
+            parent.addView(placeholder, parent.indexOfChild(flutterView) + 1,
+                    new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            setPlaceholder(container, placeholder);
+        }
+        placeholder.setImageBitmap(bitmap);
+    }
+
+    /**
+     * 重新 attach 后，新的 surface 渲染出第一帧时移除占位图
+     */
+    private static void removePlaceholderOnFirstFrame(FlutterView flutterView, FlutterViewContainer container) {
+        if (getPlaceholder(container) == null) {
+            return;
+        }
+        flutterView.addOnFirstFrameRenderedListener(new FlutterUiDisplayListener() {
+            @Override
+            public void onFlutterUiDisplayed() {
+                flutterView.removeOnFirstFrameRenderedListener(this);
+                removePlaceholder(container);
+            }
+
+            @Override
+            public void onFlutterUiNoLongerDisplayed() {
+            }
+        });
+    }
+
+    /**
+     * 进入的 flutterView 渲染出第一帧时，移除离开的容器在 detachNow(..., true) 中强制截取的占位图。
+     * 打开 snapshotPlaceholder 时占位图照常保留到离开的容器重新 attach
+     */
+    /*package*/ static void removePlaceholdersOnFirstFrame(FlutterView entering, List<FlutterViewContainer> leaving) {
+        if (isSnapshotPlaceholderEnabled()) {
+            return;
+        }
+        List<FlutterViewContainer> covered = new ArrayList<>();
+        for (FlutterViewContainer container : leaving) {
+            if (getPlaceholder(container) != null) {
+                covered.add(container);
+            }
+        }
+        if (covered.isEmpty()) {
+            return;
+        }
+        entering.addOnFirstFrameRenderedListener(new FlutterUiDisplayListener() {
+            @Override
+            public void onFlutterUiDisplayed() {
+                entering.removeOnFirstFrameRenderedListener(this);
+                for (FlutterViewContainer container : covered) {
+                    removePlaceholder(container);
+                }
+            }
+
+            @Override
+            public void onFlutterUiNoLongerDisplayed() {
+            }
+        });
+    }
+
+    private static boolean isSnapshotPlaceholderEnabled() {
+        FlutterBoostSetupOptions options = FlutterBoost.instance().getSetupOptions();
+        return options != null && options.snapshotPlaceholder();
+    }
+
+    /**
+     * 移除容器的占位图并释放截图，容器销毁 view 时调用
+     */
+    /*package*/ static void removePlaceholder(FlutterViewContainer container) {
+        ImageView placeholder = getPlaceholder(container);
+        if (placeholder == null) {
+            return;
+        }
+        setPlaceholder(container, null);
+        if (placeholder.getParent() != null) {
+            ((ViewGroup) placeholder.getParent()).removeView(placeholder);
+        }
+        placeholder.setImageBitmap(null);
+    }
+
+    private static ImageView getPlaceholder(FlutterViewContainer container) {
+        if (container instanceof FlutterBoostActivity) {
+            return ((FlutterBoostActivity) container).snapshotPlaceholder;
+        } else if (container instanceof FlutterBoostFragment) {
+            return ((FlutterBoostFragment) container).snapshotPlaceholder;
+        }
+        return null;
+    }
+
+    private static void setPlaceholder(FlutterViewContainer container, ImageView placeholder) {
+        if (container instanceof FlutterBoostActivity) {
+            ((FlutterBoostActivity) container).snapshotPlaceholder = placeholder;
+        } else if (container instanceof FlutterBoostFragment) {
+            ((FlutterBoostFragment) container).snapshotPlaceholder = placeholder;
+        }
+    }
+
+    /**
+     * 释放后台容器 flutterView 的 surface：把它从 view 树中移除，
+     * texture 模式的 SurfaceTexture、surface 模式的 Surface 随之销毁
+     *
+     * @return 原来的位置，用于 ReleasedSurface.restore，flutterView 不在 view 树中时返回 null
+     */
+    public static ReleasedSurface releaseSurface(FlutterView flutterView) {
+        return releaseSurface(flutterView, null);
+    }
+
+    /**
+     * 同 releaseSurface(FlutterView)，并移除容器的占位图
+     *
+     * @param container flutterView 所在的容器
+     */
+    public static ReleasedSurface releaseSurface(FlutterView flutterView, FlutterViewContainer container) {
+        FlutterViewAttachScheduler.flush();
+        ViewGroup parent = (ViewGroup) flutterView.getParent();
+        if (parent == null) {
+            return null;
+        }
+        if (flutterView.isAttachedToFlutterEngine()) {
+            flutterView.detachFromFlutterEngine();
+        }
+        // 占位图同样占内存，一起释放
+        removePlaceholder(container);
+        ReleasedSurface released = new ReleasedSurface(parent, parent.indexOfChild(flutterView),
+                flutterView.getLayoutParams());
+        parent.removeView(flutterView);
+        return released;
+    }
+
+    /**
+     * FlutterView 被 releaseSurface 移除前的位置
+     */
+    public static class ReleasedSurface {
+        private final ViewGroup parent;
+        private final int index;
+        private final ViewGroup.LayoutParams params;
+
+        private ReleasedSurface(ViewGroup parent, int index, ViewGroup.LayoutParams params) {
+            this.parent = parent;
+            this.index = index;
+            this.params = params;
+        }
+
+        /**
+         * 放回原来的位置，重新创建 surface，之后再 attachToFlutterEngine
+         */
+        public void restore(FlutterView flutterView) {
+            if (flutterView.getParent() == null) {
+                parent.addView(flutterView, Math.min(index, parent.getChildCount()), params);
+            }
+        }
     }
 }
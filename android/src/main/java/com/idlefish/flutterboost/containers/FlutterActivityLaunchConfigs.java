@@ -10,6 +10,7 @@ public class FlutterActivityLaunchConfigs {
     public static final String EXTRA_URL = "url";
     public static final String EXTRA_URL_PARAM = "url_param";
     public static final String EXTRA_UNIQUE_ID = "unique_id";
+    static final String EXTRA_RENDER_MODE = "render_mode";
 
     static final String DEFAULT_BACKGROUND_MODE = io.flutter.embedding.android.FlutterActivityLaunchConfigs.BackgroundMode.opaque.name();
 
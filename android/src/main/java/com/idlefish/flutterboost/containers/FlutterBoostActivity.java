@@ -5,7 +5,9 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.widget.ImageView;
 
+import com.idlefish.flutterboost.BinaryPayload;
 import com.idlefish.flutterboost.FlutterBoost;
 import com.idlefish.flutterboost.FlutterBoostUtils;
 
@@ -24,6 +26,7 @@ import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.
 import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.EXTRA_BACKGROUND_MODE;
 import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.EXTRA_CACHED_ENGINE_ID;
 import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.EXTRA_DESTROY_ENGINE_WITH_ACTIVITY;
+import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.EXTRA_RENDER_MODE;
 import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.EXTRA_UNIQUE_ID;
 import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.EXTRA_URL;
 import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.EXTRA_URL_PARAM;
@@ -35,14 +38,20 @@ public class FlutterBoostActivity extends FlutterActivity implements FlutterView
     private static final String TAG = "FlutterBoostActivity";
     private final String who = UUID.randomUUID().toString();
     private FlutterView flutterView;
+    // 超过 maxLiveContainers 时释放了 surface，回到前台时恢复
+    private ActivityAndFragmentPatch.ReleasedSurface releasedSurface;
+    // detach 时盖在 flutterView 上的最后一帧截图，由 ActivityAndFragmentPatch 维护
+    /*package*/ ImageView snapshotPlaceholder;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // 确保引擎已经创建好，FlutterActivity 会在 onCreate 中通过 getCachedEngineId() 获取它
+        FlutterBoost.instance().obtainEngine(getCachedEngineId());
         super.onCreate(savedInstanceState);
         //找到 flutterView
         flutterView = FlutterBoostUtils.findFlutterView(getWindow().getDecorView());
         //添加到 FlutterContainerManager 中
-        FlutterBoost.instance().getPlugin().onContainerCreated(this);
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerCreated(this);
     }
 
     // @Override
@@ -67,8 +76,9 @@ public class FlutterBoostActivity extends FlutterActivity implements FlutterView
             }
         }
 
-        FlutterBoost.instance().getPlugin().onContainerAppeared(this);
         assert (flutterView != null);
+        restoreSurface();
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerAppeared(this);
         ActivityAndFragmentPatch.onResumeAttachToFlutterEngine(flutterView,
                 getFlutterEngine(), this);
     }
@@ -76,8 +86,8 @@ public class FlutterBoostActivity extends FlutterActivity implements FlutterView
     @Override
     protected void onStop() {
         super.onStop();
-        getFlutterEngine().getLifecycleChannel().appIsResumed();
-        FlutterBoost.instance().getPlugin().onContainerDisappeared(this);
+        ActivityAndFragmentPatch.appIsResumed(getFlutterEngine());
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerDisappeared(this);
     }
 
     @Override
@@ -92,27 +102,66 @@ public class FlutterBoostActivity extends FlutterActivity implements FlutterView
             }
         }
         assert (flutterView != null);
-        ActivityAndFragmentPatch.onPauseDetachFromFlutterEngine(flutterView, getFlutterEngine());
-        getFlutterEngine().getLifecycleChannel().appIsResumed();
+        ActivityAndFragmentPatch.onPauseDetachFromFlutterEngine(flutterView, getFlutterEngine(), this);
+        ActivityAndFragmentPatch.appIsResumed(getFlutterEngine());
     }
 
     @Override
     protected void onDestroy() {
         // Get engine before |super.onDestroy| callback.
         FlutterEngine engine = getFlutterEngine();
+        ActivityAndFragmentPatch.removePlaceholder(this);
         super.onDestroy();
-        engine.getLifecycleChannel().appIsResumed();
-        FlutterBoost.instance().getPlugin().onContainerDestroyed(this);
+        ActivityAndFragmentPatch.appIsResumed(engine);
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerDestroyed(this);
+        // 配置变化重建时还要从 Intent 中取回参数
+        if (!isChangingConfigurations()) {
+            BinaryPayload.release(getUrlParams());
+        }
+    }
+
+    /**
+     * Releases the render surface of this background container, it is restored on resume.
+     *
+     * @return true if the surface was released by this call
+     */
+    public boolean releaseSurface() {
+        if (releasedSurface != null || flutterView == null) {
+            return false;
+        }
+        releasedSurface = ActivityAndFragmentPatch.releaseSurface(flutterView, this);
+        return releasedSurface != null;
+    }
+
+    private void restoreSurface() {
+        if (releasedSurface != null) {
+            releasedSurface.restore(flutterView);
+            releasedSurface = null;
+        }
+    }
+
+    @Override
+    public void onFlutterUiDisplayed() {
+        super.onFlutterUiDisplayed();
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerUiDisplayed(this);
     }
 
     @Override
     public void onBackPressed() {
-        ActivityAndFragmentPatch.onBackPressed();
+        ActivityAndFragmentPatch.onBackPressed(getCachedEngineId());
     }
 
+    /**
+     * 默认 texture，CachedEngineIntentBuilder.renderMode 可以为不透明的页面指定 surface
+     */
     @Override
     public RenderMode getRenderMode() {
-        return ActivityAndFragmentPatch.getRenderMode();
+        RenderMode renderMode = ActivityAndFragmentPatch.getRenderMode(getIntent().getStringExtra(EXTRA_RENDER_MODE));
+        // 透明背景的页面只能用 texture
+        if (renderMode == RenderMode.surface && !DEFAULT_BACKGROUND_MODE.equals(getIntent().getStringExtra(EXTRA_BACKGROUND_MODE))) {
+            return RenderMode.texture;
+        }
+        return renderMode;
     }
 
     @Override
@@ -154,10 +203,12 @@ public class FlutterBoostActivity extends FlutterActivity implements FlutterView
 
     /**
      * 这里返回 ENGINE_ID ，就会达到FlutterEngin 的 复用效果
+     * 通过 CachedEngineIntentBuilder.engineId 指定时返回指定的引擎
      */
     @Override
     public String getCachedEngineId() {
-        return FlutterBoost.ENGINE_ID;
+        String engineId = getIntent().getStringExtra(EXTRA_CACHED_ENGINE_ID);
+        return engineId != null ? engineId : FlutterBoost.ENGINE_ID;
     }
 
     public static class CachedEngineIntentBuilder {
@@ -167,6 +218,8 @@ public class FlutterBoostActivity extends FlutterActivity implements FlutterView
         private String url;
         private HashMap<String, Object> params;
         private String uniqueId;
+        private String engineId = FlutterBoost.ENGINE_ID;
+        private RenderMode renderMode;
 
         public CachedEngineIntentBuilder(Class<? extends FlutterBoostActivity> activityClass) {
             this.activityClass = activityClass;
@@ -199,9 +252,21 @@ public class FlutterBoostActivity extends FlutterActivity implements FlutterView
             return this;
         }
 
+        public FlutterBoostActivity.CachedEngineIntentBuilder engineId(String engineId) {
+            this.engineId = engineId != null ? engineId : FlutterBoost.ENGINE_ID;
+            return this;
+        }
+
+        // RenderMode.surface saves a composition pass for opaque pages, null means the default texture mode.
+        public FlutterBoostActivity.CachedEngineIntentBuilder renderMode(RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
         public Intent build(Context context) {
             return new Intent(context, activityClass)
-                    .putExtra(EXTRA_CACHED_ENGINE_ID, FlutterBoost.ENGINE_ID) // default engine
+                    .putExtra(EXTRA_RENDER_MODE, renderMode != null ? renderMode.name() : null)
+                    .putExtra(EXTRA_CACHED_ENGINE_ID, engineId) // default engine
                     .putExtra(EXTRA_DESTROY_ENGINE_WITH_ACTIVITY, destroyEngineWithActivity)
                     .putExtra(EXTRA_BACKGROUND_MODE, backgroundMode)
                     .putExtra(EXTRA_URL, url)
@@ -7,7 +7,9 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 
+import com.idlefish.flutterboost.BinaryPayload;
 import com.idlefish.flutterboost.FlutterBoost;
 import com.idlefish.flutterboost.FlutterBoostUtils;
 
@@ -29,6 +31,10 @@ import static com.idlefish.flutterboost.containers.FlutterActivityLaunchConfigs.
 public class FlutterBoostFragment extends FlutterFragment implements FlutterViewContainer {
     private final String who = UUID.randomUUID().toString();
     private FlutterView flutterView;
+    // 超过 maxLiveContainers 时释放了 surface，回到前台时恢复
+    private ActivityAndFragmentPatch.ReleasedSurface releasedSurface;
+    // detach 时盖在 flutterView 上的最后一帧截图，由 ActivityAndFragmentPatch 维护
+    /*package*/ ImageView snapshotPlaceholder;
 
     // @Override
     public void detachFromFlutterEngine() {
@@ -42,12 +48,14 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
 
     @Override
     public void onAttach(Context context) {
+        // 确保引擎已经创建好，FlutterFragment 会在 onAttach 中通过 getCachedEngineId() 获取它
+        FlutterBoost.instance().obtainEngine(getCachedEngineId());
         super.onAttach(context);
     }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
-        FlutterBoost.instance().getPlugin().onContainerCreated(this);
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerCreated(this);
         View view = super.onCreateView(inflater, container, savedInstanceState);
         flutterView = FlutterBoostUtils.findFlutterView(view);
         assert(flutterView != null);
@@ -59,11 +67,12 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
     public void onHiddenChanged(boolean hidden) {
         assert(flutterView != null);
         if (hidden) {
-            FlutterBoost.instance().getPlugin().onContainerDisappeared(this);
-            ActivityAndFragmentPatch.onPauseDetachFromFlutterEngine(flutterView, getFlutterEngine());
+            FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerDisappeared(this);
+            ActivityAndFragmentPatch.scheduleDetachFromFlutterEngine(flutterView, getFlutterEngine(), this);
         } else {
-            FlutterBoost.instance().getPlugin().onContainerAppeared(this);
-            ActivityAndFragmentPatch.onResumeAttachToFlutterEngine(flutterView, getFlutterEngine(), this);
+            restoreSurface();
+            FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerAppeared(this);
+            ActivityAndFragmentPatch.scheduleAttachToFlutterEngine(flutterView, getFlutterEngine(), this);
         }
         super.onHiddenChanged(hidden);
     }
@@ -72,11 +81,12 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
     public void setUserVisibleHint(boolean isVisibleToUser) {
         assert(flutterView != null);
         if (isVisibleToUser) {
-            FlutterBoost.instance().getPlugin().onContainerAppeared(this);
-            ActivityAndFragmentPatch.onResumeAttachToFlutterEngine(flutterView, getFlutterEngine(), this);
+            restoreSurface();
+            FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerAppeared(this);
+            ActivityAndFragmentPatch.scheduleAttachToFlutterEngine(flutterView, getFlutterEngine(), this);
         } else {
-            FlutterBoost.instance().getPlugin().onContainerDisappeared(this);
-            ActivityAndFragmentPatch.onPauseDetachFromFlutterEngine(flutterView, getFlutterEngine());
+            FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerDisappeared(this);
+            ActivityAndFragmentPatch.scheduleDetachFromFlutterEngine(flutterView, getFlutterEngine(), this);
         }
         super.setUserVisibleHint(isVisibleToUser);
     }
@@ -85,17 +95,26 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
     public void onResume() {
         super.onResume();
         if (!isHidden()) {
-            FlutterBoost.instance().getPlugin().onContainerAppeared(this);
             assert(flutterView != null);
-            ActivityAndFragmentPatch.onResumeAttachToFlutterEngine(flutterView, getFlutterEngine(), this);
+            restoreSurface();
+            FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerAppeared(this);
+            ActivityAndFragmentPatch.scheduleAttachToFlutterEngine(flutterView, getFlutterEngine(), this);
             assert(getFlutterEngine() != null);
-            getFlutterEngine().getLifecycleChannel().appIsResumed();
+            ActivityAndFragmentPatch.appIsResumed(getFlutterEngine());
         }
     }
 
+    /**
+     * 默认 texture，CachedEngineFragmentBuilder.renderMode 可以为不透明的页面指定 surface
+     */
     @Override
     public RenderMode getRenderMode() {
-        return ActivityAndFragmentPatch.getRenderMode();
+        RenderMode renderMode = ActivityAndFragmentPatch.getRenderMode(getArguments().getString(ARG_FLUTTERVIEW_RENDER_MODE));
+        // 透明背景的页面只能用 texture
+        if (renderMode == RenderMode.surface && getTransparencyMode() == TransparencyMode.transparent) {
+            return RenderMode.texture;
+        }
+        return renderMode;
     }
 
     @Override
@@ -103,9 +122,9 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
         super.onPause();
         if (!isHidden()) {
             assert(flutterView != null);
-            ActivityAndFragmentPatch.onPauseDetachFromFlutterEngine(flutterView, getFlutterEngine());
+            ActivityAndFragmentPatch.scheduleDetachFromFlutterEngine(flutterView, getFlutterEngine(), this);
             assert(getFlutterEngine() != null);
-            getFlutterEngine().getLifecycleChannel().appIsResumed();
+            ActivityAndFragmentPatch.appIsResumed(getFlutterEngine());
         }
     }
 
@@ -113,16 +132,29 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
     public void onStop() {
         super.onStop();
         assert(getFlutterEngine() != null);
-        getFlutterEngine().getLifecycleChannel().appIsResumed();
+        ActivityAndFragmentPatch.appIsResumed(getFlutterEngine());
         if (!isHidden()) {
-            FlutterBoost.instance().getPlugin().onContainerDisappeared(this);
+            FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerDisappeared(this);
         }
     }
 
     @Override
     public void onDestroyView() {
+        // 不能把等待中的 attach 留给已经销毁的 flutterView
+        FlutterViewAttachScheduler.cancelAttach(flutterView);
+        FlutterViewAttachScheduler.flush();
+        ActivityAndFragmentPatch.removePlaceholder(this);
         super.onDestroyView();
-        FlutterBoost.instance().getPlugin().onContainerDestroyed(this);
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerDestroyed(this);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        // 配置变化重建时还要从 arguments 中取回参数
+        if (getActivity() == null || !getActivity().isChangingConfigurations()) {
+            BinaryPayload.release(getUrlParams());
+        }
     }
 
     @Override
@@ -130,12 +162,38 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
         FlutterEngine engine = getFlutterEngine();
         super.onDetach();
         assert(engine != null);
-        engine.getLifecycleChannel().appIsResumed();
+        ActivityAndFragmentPatch.appIsResumed(engine);
+    }
+
+    /**
+     * Releases the render surface of this background container, it is restored when it shows again.
+     *
+     * @return true if the surface was released by this call
+     */
+    public boolean releaseSurface() {
+        if (releasedSurface != null || flutterView == null) {
+            return false;
+        }
+        releasedSurface = ActivityAndFragmentPatch.releaseSurface(flutterView, this);
+        return releasedSurface != null;
+    }
+
+    private void restoreSurface() {
+        if (releasedSurface != null) {
+            releasedSurface.restore(flutterView);
+            releasedSurface = null;
+        }
+    }
+
+    @Override
+    public void onFlutterUiDisplayed() {
+        super.onFlutterUiDisplayed();
+        FlutterBoost.instance().getPlugin(getCachedEngineId()).onContainerUiDisplayed(this);
     }
 
     @Override
     public void onBackPressed() {
-        ActivityAndFragmentPatch.onBackPressed();
+        ActivityAndFragmentPatch.onBackPressed(getCachedEngineId());
     }
 
     @Override
@@ -174,18 +232,19 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
 
     @Override
     public String getCachedEngineId() {
-      return FlutterBoost.ENGINE_ID;
+      return getArguments().getString(ARG_CACHED_ENGINE_ID, FlutterBoost.ENGINE_ID);
     }
 
     public static class CachedEngineFragmentBuilder {
         private final Class<? extends FlutterBoostFragment> fragmentClass;
         private boolean destroyEngineWithFragment = false;
-        private RenderMode renderMode = RenderMode.surface;
+        private RenderMode renderMode;
         private TransparencyMode transparencyMode = TransparencyMode.transparent;
         private boolean shouldAttachEngineToActivity = true;
         private String url = "/";
         private HashMap<String, Object> params;
         private String uniqueId;
+        private String engineId = FlutterBoost.ENGINE_ID;
 
         public CachedEngineFragmentBuilder() {
             this(FlutterBoostFragment.class);
@@ -210,6 +269,11 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
             return this;
         }
 
+        public CachedEngineFragmentBuilder engineId(String engineId) {
+            this.engineId = engineId != null ? engineId : FlutterBoost.ENGINE_ID;
+            return this;
+        }
+
         public CachedEngineFragmentBuilder destroyEngineWithFragment(
                 boolean destroyEngineWithFragment) {
             this.destroyEngineWithFragment = destroyEngineWithFragment;
@@ -217,6 +281,8 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
         }
 
 
+        // RenderMode.surface saves a composition pass for opaque pages, null means the default texture mode.
+        // Surface needs TransparencyMode.opaque, transparent fragments always fall back to texture.
         public CachedEngineFragmentBuilder renderMode( RenderMode renderMode) {
             this.renderMode = renderMode;
             return this;
@@ -243,11 +309,11 @@ public class FlutterBoostFragment extends FlutterFragment implements FlutterView
          */
         protected Bundle createArgs() {
             Bundle args = new Bundle();
-            args.putString(ARG_CACHED_ENGINE_ID, FlutterBoost.ENGINE_ID);
+            args.putString(ARG_CACHED_ENGINE_ID, engineId);
             args.putBoolean(ARG_DESTROY_ENGINE_WITH_FRAGMENT, destroyEngineWithFragment);
-            args.putString(
-                    ARG_FLUTTERVIEW_RENDER_MODE,
-                    renderMode != null ? renderMode.name() : RenderMode.surface.name());
+            if (renderMode != null) {
+                args.putString(ARG_FLUTTERVIEW_RENDER_MODE, renderMode.name());
+            }
             args.putString(
                     ARG_FLUTTERVIEW_TRANSPARENCY_MODE,
                     transparencyMode != null ? transparencyMode.name() : TransparencyMode.transparent.name());
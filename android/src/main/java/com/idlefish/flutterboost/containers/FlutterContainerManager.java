@@ -1,13 +1,21 @@
 package com.idlefish.flutterboost.containers;
 
+import android.app.Activity;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * flutter 容器管理这 ，缓存了  allContainers  和 activeContainers
+ * <p>
+ * activeContainers 是按激活先后排列的双向链表，节点同时挂在 allContainers 上，
+ * 激活、移除、取栈顶都是 O(1)。另外按宿主 Activity、页面名和引擎建了索引。
+ * 所有方法都可以在任意线程调用，getActiveContainers 返回不可变的快照，容器没有变化时不会重新生成。
  */
 public class FlutterContainerManager {
 
@@ -22,54 +30,194 @@ public class FlutterContainerManager {
         return FlutterContainerManager.LazyHolder.INSTANCE;
     }
 
-    private final Map<String, FlutterViewContainer> allContainers = new HashMap<>();
-    private final LinkedList<FlutterViewContainer> activeContainers = new LinkedList<>();
-
-    public void addContainer(String uniqueId, FlutterViewContainer container) {
-        allContainers.put(uniqueId, container);
+    private static class Node {
+        final FlutterViewContainer container;
+        // 加入时的索引 key，移除时按同样的 key 清理
+        final Activity activity;
+        final String url;
+        final String engineId;
+        // activeContainers 中的前后节点
+        Node prev;
+        Node next;
+        boolean active;
+
+        Node(FlutterViewContainer container) {
+            this.container = container;
+            this.activity = container.getContextActivity();
+            this.url = container.getUrl();
+            this.engineId = container.getCachedEngineId();
+        }
+    }
 
+    private final Map<String, Node> allContainers = new HashMap<>();
+    // activeContainers 的头尾，tail 是栈顶
+    private Node head;
+    private Node tail;
+    private final Map<Activity, Set<FlutterViewContainer>> containersByActivity = new HashMap<>();
+    private final Map<String, Set<FlutterViewContainer>> containersByUrl = new HashMap<>();
+    private final Map<String, Integer> containerCountByEngine = new HashMap<>();
+    // activeContainers 的快照，变化后标记 snapshotDirty，用到时再重新生成
+    private List<FlutterViewContainer> activeSnapshot = Collections.emptyList();
+    private boolean snapshotDirty = false;
+
+    public synchronized void addContainer(String uniqueId, FlutterViewContainer container) {
+        if (uniqueId == null || container == null) return;
+        if (allContainers.containsKey(uniqueId)) {
+            removeContainer(uniqueId);
+        }
+        Node node = new Node(container);
+        allContainers.put(uniqueId, node);
+        if (node.activity != null) {
+            index(containersByActivity, node.activity, container);
+        }
+        if (node.url != null) {
+            index(containersByUrl, node.url, container);
+        }
+        if (node.engineId != null) {
+            Integer count = containerCountByEngine.get(node.engineId);
+            containerCountByEngine.put(node.engineId, count != null ? count + 1 : 1);
+        }
     }
 
-    public void activateContainer(String uniqueId, FlutterViewContainer container) {
+    public synchronized void activateContainer(String uniqueId, FlutterViewContainer container) {
         if (uniqueId == null || container == null) return;
         assert (allContainers.containsKey(uniqueId));
 
-        if (activeContainers.contains(container)) {
-            activeContainers.remove(container);
+        Node node = allContainers.get(uniqueId);
+        if (node == null) return;
+        if (node == tail) return;
+        if (node.active) {
+            unlink(node);
         }
-        activeContainers.add(container);
+        linkLast(node);
     }
 
-    public void removeContainer(String uniqueId) {
+    public synchronized void removeContainer(String uniqueId) {
         if (uniqueId == null) return;
-        FlutterViewContainer container = allContainers.remove(uniqueId);
-        activeContainers.remove(container);
+        Node node = allContainers.remove(uniqueId);
+        if (node == null) return;
+        if (node.active) {
+            unlink(node);
+        }
+        if (node.activity != null) {
+            unindex(containersByActivity, node.activity, node.container);
+        }
+        if (node.url != null) {
+            unindex(containersByUrl, node.url, node.container);
+        }
+        if (node.engineId != null) {
+            Integer count = containerCountByEngine.get(node.engineId);
+            if (count == null || count <= 1) {
+                containerCountByEngine.remove(node.engineId);
+            } else {
+                containerCountByEngine.put(node.engineId, count - 1);
+            }
+        }
     }
 
+    private void linkLast(Node node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail != null) {
+            tail.next = node;
+        } else {
+            head = node;
+        }
+        tail = node;
+        node.active = true;
+        snapshotDirty = true;
+    }
 
-    public FlutterViewContainer findContainerById(String uniqueId) {
-        if (allContainers.containsKey(uniqueId)) {
-            return allContainers.get(uniqueId);
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
         }
-        return null;
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.active = false;
+        snapshotDirty = true;
+    }
+
+    private static <K> void index(Map<K, Set<FlutterViewContainer>> table, K key, FlutterViewContainer container) {
+        Set<FlutterViewContainer> containers = table.get(key);
+        if (containers == null) {
+            containers = new LinkedHashSet<>();
+            table.put(key, containers);
+        }
+        containers.add(container);
     }
 
-    public FlutterViewContainer getTopContainer() {
-        if (activeContainers.size() > 0) {
-            return activeContainers.getLast();
+    private static <K> void unindex(Map<K, Set<FlutterViewContainer>> table, K key, FlutterViewContainer container) {
+        Set<FlutterViewContainer> containers = table.get(key);
+        if (containers != null) {
+            containers.remove(container);
+            if (containers.isEmpty()) {
+                table.remove(key);
+            }
         }
-        return null;
     }
 
-    public boolean isTopContainer(String uniqueId) {
-        FlutterViewContainer top = getTopContainer();
-        if (top != null && top.getUniqueId() == uniqueId) {
-            return true;
+    public synchronized FlutterViewContainer findContainerById(String uniqueId) {
+        Node node = allContainers.get(uniqueId);
+        return node != null ? node.container : null;
+    }
+
+    public synchronized FlutterViewContainer getTopContainer() {
+        return tail != null ? tail.container : null;
+    }
+
+    public synchronized boolean isTopContainer(String uniqueId) {
+        return tail != null && uniqueId != null && uniqueId.equals(tail.container.getUniqueId());
+    }
+
+    /**
+     * Gets the active containers from bottom to top. The list is immutable and
+     * only rebuilt after the stack changed, so it is cheap to call from any thread.
+     */
+    public synchronized List<FlutterViewContainer> getActiveContainers() {
+        if (snapshotDirty) {
+            List<FlutterViewContainer> snapshot = new ArrayList<>();
+            for (Node node = head; node != null; node = node.next) {
+                snapshot.add(node.container);
+            }
+            activeSnapshot = Collections.unmodifiableList(snapshot);
+            snapshotDirty = false;
         }
-        return false;
+        return activeSnapshot;
+    }
+
+    /**
+     * Gets the containers hosted by the activity, in the order they were added.
+     */
+    public synchronized List<FlutterViewContainer> getContainersByActivity(Activity activity) {
+        Set<FlutterViewContainer> containers = containersByActivity.get(activity);
+        return containers != null ? new ArrayList<>(containers) : Collections.<FlutterViewContainer>emptyList();
     }
 
-    public int getContainerSize() {
+    /**
+     * Gets the containers showing the page, in the order they were added.
+     */
+    public synchronized List<FlutterViewContainer> getContainersByUrl(String url) {
+        Set<FlutterViewContainer> containers = containersByUrl.get(url);
+        return containers != null ? new ArrayList<>(containers) : Collections.<FlutterViewContainer>emptyList();
+    }
+
+    public synchronized int getContainerSize() {
         return allContainers.size();
     }
+
+    /**
+     * 运行在 engineId 对应引擎上的容器数量
+     */
+    public synchronized int getContainerSize(String engineId) {
+        Integer count = engineId != null ? containerCountByEngine.get(engineId) : null;
+        return count != null ? count : 0;
+    }
 }
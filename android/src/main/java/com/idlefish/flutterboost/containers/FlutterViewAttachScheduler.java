@@ -0,0 +1,118 @@
+package com.idlefish.flutterboost.containers;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.embedding.android.FlutterView;
+import io.flutter.embedding.engine.FlutterEngine;
+
+/**
+ * 合并容器的 attach/detach 请求，在下一帧开始时统一执行
+ * <p>
+ * 快速切换 tab 时 onHiddenChanged、setUserVisibleHint、onResume/onPause 会连续触发 attach/detach，
+ * 每次都要重建 surface、重新发送 viewport metrics。这里每个 FlutterView 只保留最后一次请求，
+ * 最终状态和当前状态相同的（例如 detach 后又 attach 回来）直接跳过；执行时先 detach 再 attach，
+ * 因为同一个引擎的 renderer 同时只能渲染到一个 surface。
+ * 同一帧里既有 detach 又有 attach 时，离开的容器 detach 前总是截图占位（见 ActivityAndFragmentPatch），
+ * 进入的 FlutterView 画出第一帧后才移除，没有打开 snapshotPlaceholder 时切换中也不会空白一帧。
+ * 只能在主线程使用。
+ */
+final class FlutterViewAttachScheduler {
+    private static final Map<FlutterView, Request> pending = new LinkedHashMap<>();
+    private static boolean frameScheduled = false;
+    private static final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+        frameScheduled = false;
+        flush();
+    };
+
+    private static class Request {
+        final boolean attach;
+        final FlutterEngine engine;
+        final FlutterViewContainer container;
+
+        Request(boolean attach, FlutterEngine engine, FlutterViewContainer container) {
+            this.attach = attach;
+            this.engine = engine;
+            this.container = container;
+        }
+    }
+
+    private FlutterViewAttachScheduler() {
+    }
+
+    static void requestAttach(FlutterView flutterView, FlutterEngine engine, FlutterViewContainer container) {
+        request(flutterView, new Request(true, engine, container));
+    }
+
+    static void requestDetach(FlutterView flutterView, FlutterEngine engine, FlutterViewContainer container) {
+        request(flutterView, new Request(false, engine, container));
+    }
+
+    private static void request(FlutterView flutterView, Request request) {
+        // 重新放到最后，按最后一次请求的先后执行
+        pending.remove(flutterView);
+        pending.put(flutterView, request);
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * flutterView 要销毁了，丢掉它等待中的 attach
+     */
+    static void cancelAttach(FlutterView flutterView) {
+        Request request = pending.get(flutterView);
+        if (request != null && request.attach) {
+            pending.remove(flutterView);
+        }
+    }
+
+    /**
+     * 立即执行所有等待中的请求，直接 attach/detach 或者容器销毁之前调用
+     */
+    static void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (frameScheduled) {
+            frameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+        List<Map.Entry<FlutterView, Request>> requests = new ArrayList<>(pending.entrySet());
+        pending.clear();
+        boolean attaching = false;
+        for (Map.Entry<FlutterView, Request> entry : requests) {
+            if (entry.getValue().attach && !entry.getKey().isAttachedToFlutterEngine()) {
+                attaching = true;
+                break;
+            }
+        }
+        List<FlutterViewContainer> leaving = new ArrayList<>();
+        for (Map.Entry<FlutterView, Request> entry : requests) {
+            Request request = entry.getValue();
+            if (!request.attach && entry.getKey().isAttachedToFlutterEngine()) {
+                // 后面还有 attach，离开的容器先用截图盖住
+                ActivityAndFragmentPatch.detachNow(entry.getKey(), request.engine, request.container, attaching);
+                if (request.container != null) {
+                    leaving.add(request.container);
+                }
+            }
+        }
+        FlutterView entering = null;
+        for (Map.Entry<FlutterView, Request> entry : requests) {
+            Request request = entry.getValue();
+            if (request.attach && !entry.getKey().isAttachedToFlutterEngine()) {
+                ActivityAndFragmentPatch.attachNow(entry.getKey(), request.engine, request.container);
+                entering = entry.getKey();
+            }
+        }
+        if (entering != null && !leaving.isEmpty()) {
+            ActivityAndFragmentPatch.removePlaceholdersOnFirstFrame(entering, leaving);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.idlefish.flutterboost.containers;
 
 import android.app.Activity;
 
+import com.idlefish.flutterboost.FlutterBoost;
+
 import java.util.Map;
 
 /**
@@ -12,5 +14,13 @@ public interface FlutterViewContainer {
     String getUrl();
     Map<String, Object> getUrlParams();
     String getUniqueId();
+
+    /**
+     * Gets the id of the engine this container runs on, the default engine unless overridden.
+     */
+    default String getCachedEngineId() {
+        return FlutterBoost.ENGINE_ID;
+    }
+
     void finishContainer(Map<String, Object> result);
 }
@@ -0,0 +1,110 @@
+package com.idlefish.flutterboost;
+
+import android.os.Looper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Map;
+
+import io.flutter.embedding.engine.systemchannels.LifecycleChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class EngineLifecycleTest {
+    private final LifecycleChannel channel = mock(LifecycleChannel.class);
+    private final EngineLifecycle lifecycle = new EngineLifecycle(channel);
+
+    private static void idleMainLooper() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @Test
+    public void sendsAfterTheCurrentMessage() {
+        lifecycle.onResumed();
+        verifyNoInteractions(channel);
+        assertNull(lifecycle.getState());
+
+        idleMainLooper();
+        verify(channel).appIsResumed();
+        assertEquals(EngineLifecycle.State.RESUMED, lifecycle.getState());
+    }
+
+    @Test
+    public void collapsesEventsToTheLastState() {
+        lifecycle.onInactive();
+        lifecycle.onPaused();
+        lifecycle.onResumed();
+        idleMainLooper();
+
+        verify(channel, never()).appIsInactive();
+        verify(channel, never()).appIsPaused();
+        verify(channel, times(1)).appIsResumed();
+        assertEquals(3, lifecycle.getEventCount());
+        assertEquals(2, lifecycle.getSuppressedCount());
+    }
+
+    @Test
+    public void skipsTransitionBackToTheSentState() {
+        lifecycle.onResumed();
+        idleMainLooper();
+        // 页面切换中 detach 时 inactive，onPause 时又 resumed
+        lifecycle.onInactive();
+        lifecycle.onResumed();
+        idleMainLooper();
+        lifecycle.onResumed();
+        idleMainLooper();
+
+        verify(channel, times(1)).appIsResumed();
+        verify(channel, never()).appIsInactive();
+        assertEquals(EngineLifecycle.State.RESUMED, lifecycle.getState());
+    }
+
+    @Test
+    public void sendsEveryRealChangeInOrder() {
+        lifecycle.onResumed();
+        idleMainLooper();
+        lifecycle.onInactive();
+        idleMainLooper();
+        lifecycle.onPaused();
+        idleMainLooper();
+        lifecycle.onDetached();
+        idleMainLooper();
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).appIsResumed();
+        order.verify(channel).appIsInactive();
+        order.verify(channel).appIsPaused();
+        order.verify(channel).appIsDetached();
+
+        Map<String, Long> transitions = lifecycle.getTransitionCounts();
+        assertEquals(Long.valueOf(1), transitions.get("NONE->RESUMED"));
+        assertEquals(Long.valueOf(1), transitions.get("RESUMED->INACTIVE"));
+        assertEquals(Long.valueOf(1), transitions.get("INACTIVE->PAUSED"));
+        assertEquals(Long.valueOf(1), transitions.get("PAUSED->DETACHED"));
+        assertEquals(0, lifecycle.getSuppressedCount());
+    }
+
+    @Test
+    public void cancelDropsPendingDispatch() {
+        lifecycle.onResumed();
+        lifecycle.cancel();
+        idleMainLooper();
+
+        verifyNoInteractions(channel);
+        assertNull(lifecycle.getState());
+    }
+}
@@ -0,0 +1,97 @@
+package com.idlefish.flutterboost;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import io.flutter.FlutterInjector;
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineCache;
+import io.flutter.embedding.engine.FlutterJNI;
+import io.flutter.embedding.engine.dart.DartExecutor;
+import io.flutter.embedding.engine.loader.FlutterLoader;
+import io.flutter.embedding.engine.renderer.FlutterUiDisplayListener;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 不需要 native 引擎的 FlutterEngine：FlutterJNI 和 FlutterLoader 都是 mock 的，
+ * 发给 dart 的消息直接丢掉，dart 侧的行为由测试调用插件的方法来模拟。
+ * 渲染出一帧由 renderFrame() 模拟，它通知所有注册在 FlutterJNI 上的首帧监听。
+ */
+public class FakeFlutterEngine {
+    private final FlutterEngine engine;
+    private final List<FlutterUiDisplayListener> displayListeners = new ArrayList<>();
+
+    /**
+     * 把 FlutterInjector 换成使用 mock FlutterLoader 的实例，需要在 FlutterBoost.setup 之前调用
+     */
+    public static void installFakeLoader() {
+        FlutterLoader loader = mock(FlutterLoader.class);
+        when(loader.findAppBundlePath()).thenReturn("flutter_assets");
+        FlutterInjector.reset();
+        FlutterInjector.setInstance(new FlutterInjector.Builder().setFlutterLoader(loader).build());
+    }
+
+    public FakeFlutterEngine(Context context) {
+        FlutterJNI flutterJNI = mock(FlutterJNI.class);
+        when(flutterJNI.isAttached()).thenReturn(true);
+        doAnswer(invocation -> {
+            displayListeners.add(invocation.getArgument(0));
+            return null;
+        }).when(flutterJNI).addIsDisplayingFlutterUiListener(any(FlutterUiDisplayListener.class));
+        doAnswer(invocation -> {
+            displayListeners.remove(invocation.getArgument(0));
+            return null;
+        }).when(flutterJNI).removeIsDisplayingFlutterUiListener(any(FlutterUiDisplayListener.class));
+        engine = new FlutterEngine(context, mock(FlutterLoader.class), flutterJNI, null, false);
+        engine.getPlugins().add(new FlutterBoostPlugin());
+    }
+
+    public FlutterEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * 缓存到 FlutterEngineCache，并开始"执行" dart 入口
+     */
+    public FakeFlutterEngine cache(String engineId) {
+        FlutterEngineCache.getInstance().put(engineId, engine);
+        engine.getDartExecutor().executeDartEntrypoint(
+                new DartExecutor.DartEntrypoint("flutter_assets", "main"));
+        return this;
+    }
+
+    /**
+     * 模拟 dart 侧 FlutterBoostApp 初始化完成后发来的 app_ready 事件
+     */
+    public void appReady() {
+        Messages.CommonParams params = new Messages.CommonParams();
+        params.setKey(FlutterBoost.APP_READY_KEY);
+        params.setArguments(new HashMap<>());
+        FlutterBoostUtils.getPlugin(engine).sendEventToNative(params);
+    }
+
+    /**
+     * 模拟 surface 上渲染出一帧
+     */
+    public void renderFrame() {
+        for (FlutterUiDisplayListener listener : new ArrayList<>(displayListeners)) {
+            listener.onFlutterUiDisplayed();
+        }
+    }
+
+    /**
+     * 模拟 surface 销毁，之后 attach 的 FlutterView 要等下一次 renderFrame 才有首帧
+     */
+    public void clearFrame() {
+        for (FlutterUiDisplayListener listener : new ArrayList<>(displayListeners)) {
+            listener.onFlutterUiNoLongerDisplayed();
+        }
+    }
+}
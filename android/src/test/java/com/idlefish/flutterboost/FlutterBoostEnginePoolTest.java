@@ -0,0 +1,107 @@
+package com.idlefish.flutterboost;
+
+import android.app.Application;
+import android.os.Looper;
+
+import com.idlefish.flutterboost.Messages.StackInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlutterBoostEnginePoolTest {
+    private static final String ENGINE_ID = "pool_test_engine";
+    private static final long IDLE_TIMEOUT = 1000;
+
+    private final Application application = RuntimeEnvironment.application;
+    private final List<FlutterEngine> created = new ArrayList<>();
+    private FlutterBoostEnginePool pool;
+
+    @Before
+    public void setUp() {
+        FakeFlutterEngine.installFakeLoader();
+        FlutterBoostSetupOptions options = new FlutterBoostSetupOptions.Builder()
+                .engineIdleTimeout(IDLE_TIMEOUT)
+                .build();
+        // 用 FakeFlutterEngine 代替真正的引擎
+        pool = new FlutterBoostEnginePool(application, options) {
+            @Override
+            FlutterEngine createEngine(StartupMetrics metrics) {
+                FlutterEngine engine = new FakeFlutterEngine(application).getEngine();
+                created.add(engine);
+                return engine;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        FlutterEngineCache.getInstance().remove(ENGINE_ID);
+    }
+
+    private static StackInfo stackOf(String uniqueId) {
+        StackInfo stack = new StackInfo();
+        stack.setContainers(new ArrayList<>(Collections.singletonList(uniqueId)));
+        return stack;
+    }
+
+    @Test
+    public void reopensReclaimedEngineWithItsStack() {
+        FlutterEngine first = pool.obtain(ENGINE_ID);
+        StackInfo stack = stackOf("page_id");
+        FlutterBoostUtils.getPlugin(first).saveStackToHost(stack);
+
+        // 最后一个容器移除之前保存的页面栈
+        pool.markIdle(ENGINE_ID, FlutterBoostUtils.getPlugin(first).getStackFromHost());
+        shadowOf(Looper.getMainLooper()).idleFor(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNull(pool.get(ENGINE_ID));
+        assertTrue(pool.isReclaimed(ENGINE_ID));
+        assertFalse(pool.engineIds().contains(ENGINE_ID));
+
+        FlutterEngine second = pool.obtain(ENGINE_ID);
+        assertNotSame(first, second);
+        assertSame(second, pool.get(ENGINE_ID));
+        assertFalse(pool.isReclaimed(ENGINE_ID));
+        assertSame(stack, FlutterBoostUtils.getPlugin(second).getStackFromHost());
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void keepsEngineThatBecomesBusyAgain() {
+        FlutterEngine engine = pool.obtain(ENGINE_ID);
+        pool.markIdle(ENGINE_ID, stackOf("page_id"));
+        pool.markBusy(ENGINE_ID);
+        shadowOf(Looper.getMainLooper()).idleFor(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertSame(engine, pool.get(ENGINE_ID));
+        assertFalse(pool.isReclaimed(ENGINE_ID));
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void doesNotKnowEnginesItNeverReclaimed() {
+        assertFalse(pool.isReclaimed("unknown_engine"));
+    }
+}
@@ -0,0 +1,159 @@
+package com.idlefish.flutterboost;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlutterBoostEventRegistryTest {
+    private final FlutterBoostEventRegistry registry = new FlutterBoostEventRegistry();
+
+    private static EventListener listener() {
+        return new EventListener() {
+            @Override
+            public void onEvent(String key, Map<Object, Object> args) {
+            }
+        };
+    }
+
+    @Test
+    public void matchesExactKeyOnly() {
+        EventListener a = listener();
+        registry.add("cart", a);
+
+        assertEquals(Collections.singletonList(a), registry.match("cart"));
+        assertTrue(registry.match("cart.add").isEmpty());
+        assertTrue(registry.match("car").isEmpty());
+    }
+
+    @Test
+    public void keepsRegistrationOrderForSameKey() {
+        EventListener a = listener();
+        EventListener b = listener();
+        registry.add("key", a);
+        registry.add("key", b);
+
+        assertEquals(Arrays.asList(a, b), registry.match("key"));
+    }
+
+    @Test
+    public void wildcardMatchesDeeperKeysButNotThePrefixItself() {
+        EventListener cart = listener();
+        registry.add("cart.*", cart);
+
+        assertEquals(Collections.singletonList(cart), registry.match("cart.add"));
+        assertEquals(Collections.singletonList(cart), registry.match("cart.item.remove"));
+        assertTrue(registry.match("cart").isEmpty());
+        assertTrue(registry.match("cartx.add").isEmpty());
+    }
+
+    @Test
+    public void exactListenersComeFirstThenLongestWildcard() {
+        EventListener all = listener();
+        EventListener cart = listener();
+        EventListener item = listener();
+        EventListener exact = listener();
+        registry.add("*", all);
+        registry.add("cart.*", cart);
+        registry.add("cart.item.*", item);
+        registry.add("cart.item.remove", exact);
+
+        assertEquals(Arrays.asList(exact, item, cart, all), registry.match("cart.item.remove"));
+        assertEquals(Arrays.asList(cart, all), registry.match("cart.add"));
+        assertEquals(Collections.singletonList(all), registry.match("order"));
+    }
+
+    @Test
+    public void removerRemovesOnlyItsListener() {
+        EventListener a = listener();
+        EventListener b = listener();
+        ListenerRemover removeA = registry.add("key", a);
+        registry.add("key", b);
+        ListenerRemover removeWildcard = registry.add("key.*", a);
+
+        removeA.remove();
+        assertEquals(Collections.singletonList(b), registry.match("key"));
+        assertEquals(Collections.singletonList(a), registry.match("key.sub"));
+
+        removeWildcard.remove();
+        assertTrue(registry.match("key.sub").isEmpty());
+        // 重复移除没有影响
+        removeA.remove();
+        assertEquals(Collections.singletonList(b), registry.match("key"));
+    }
+
+    @Test
+    public void keyCanBeReusedAfterLastListenerIsRemoved() {
+        EventListener a = listener();
+        EventListener b = listener();
+        ListenerRemover remover = registry.add("key", a);
+        remover.remove();
+        assertTrue(registry.match("key").isEmpty());
+
+        registry.add("key", b);
+        // 已经失效的 remover 不能影响新注册的 listener
+        remover.remove();
+        assertEquals(Collections.singletonList(b), registry.match("key"));
+    }
+
+    @Test
+    public void matchReturnsASnapshot() {
+        EventListener a = listener();
+        registry.add("key", a);
+        List<EventListener> snapshot = registry.match("key");
+        registry.add("key", listener());
+
+        assertEquals(Collections.singletonList(a), snapshot);
+        assertEquals(2, registry.match("key").size());
+    }
+
+    @Test
+    public void concurrentAddAndRemoveKeepsAllSurvivors() throws Exception {
+        final int threads = 8;
+        final int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        final List<List<EventListener>> kept = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final List<EventListener> survivors = Collections.synchronizedList(new ArrayList<>());
+            kept.add(survivors);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    EventListener l = listener();
+                    ListenerRemover remover = registry.add("key", l);
+                    if (i % 2 == 0) {
+                        remover.remove();
+                    } else {
+                        survivors.add(l);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<EventListener> matched = registry.match("key");
+        int expected = 0;
+        for (List<EventListener> survivors : kept) {
+            expected += survivors.size();
+            assertTrue(matched.containsAll(survivors));
+        }
+        assertEquals(expected, matched.size());
+    }
+}
@@ -0,0 +1,202 @@
+package com.idlefish.flutterboost;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Intent;
+import android.os.Looper;
+
+import androidx.fragment.app.FragmentActivity;
+
+import com.idlefish.flutterboost.containers.FlutterBoostActivity;
+import com.idlefish.flutterboost.containers.FlutterBoostFragment;
+import com.idlefish.flutterboost.containers.FlutterContainerManager;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.embedding.android.RenderMode;
+import io.flutter.embedding.android.TransparencyMode;
+import io.flutter.embedding.engine.FlutterEngineCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 页面打开耗时的基准测试，不需要真机或模拟器
+ * <p>
+ * 引擎是 FakeFlutterEngine，首帧由测试模拟，所以测到的是原生侧的耗时：
+ * FlutterBoost.open、delegate 创建容器、容器的 onCreate 到 onResume、attach FlutterView、首帧回调。
+ * 引擎创建和 dart 侧构建页面的耗时不在其中，引擎创建见 StartupMetrics。
+ * 首帧是模拟的，测试本身不会因为耗时变长而失败，所以默认不运行，需要时用 ./gradlew test -Pbenchmark 打开。
+ * 结果写入 build/reports/benchmark/OpenLatencyBenchmark.txt，和上一个版本的结果对比即可发现原生侧打开耗时的回退。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class OpenLatencyBenchmarkTest {
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int ROUNDS = 50;
+    private static final String PAGE_A = "benchmark_page_a";
+    private static final String PAGE_B = "benchmark_page_b";
+    private static final String REPORT_FILE = "OpenLatencyBenchmark.txt";
+
+    private final Application application = RuntimeEnvironment.application;
+    private final OpenLatencyMetrics metrics = new OpenLatencyMetrics();
+    private final BenchmarkDelegate delegate = new BenchmarkDelegate();
+    private int engineCount = 0;
+
+    @Test
+    public void benchmarkOpenLatency() throws IOException {
+        Assume.assumeTrue("run with -Pbenchmark", Boolean.getBoolean("flutterboost.benchmark"));
+        FakeFlutterEngine.installFakeLoader();
+        FakeFlutterEngine defaultEngine = new FakeFlutterEngine(application).cache(FlutterBoost.ENGINE_ID);
+        FlutterBoost.instance().setup(application, delegate, null);
+        defaultEngine.appReady();
+
+        String[] containerTypes = {OpenLatencyMetrics.CONTAINER_ACTIVITY, OpenLatencyMetrics.CONTAINER_FRAGMENT};
+        RenderMode[] renderModes = {RenderMode.texture, RenderMode.surface};
+        for (String containerType : containerTypes) {
+            for (RenderMode renderMode : renderModes) {
+                for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                    runRound(containerType, renderMode);
+                }
+            }
+        }
+        metrics.reset();
+
+        for (String containerType : containerTypes) {
+            for (RenderMode renderMode : renderModes) {
+                for (int i = 0; i < ROUNDS; i++) {
+                    runRound(containerType, renderMode);
+                }
+            }
+        }
+
+        writeReport();
+        assertEquals(containerTypes.length * renderModes.length * 3, metrics.getKeys().size());
+        for (String key : metrics.getKeys()) {
+            assertEquals(ROUNDS, metrics.getSampleCount(key));
+        }
+    }
+
+    private void writeReport() throws IOException {
+        File dir = new File(System.getProperty("flutterboost.benchmark.dir", "build/reports/benchmark"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(dir, REPORT_FILE)), "UTF-8")) {
+            writer.write("Native-side open latency only: FakeFlutterEngine, simulated first frame, "
+                    + "no engine creation or dart page build.\n");
+            writer.write(metrics.report());
+        }
+    }
+
+    /**
+     * 在一个新引擎上依次打开 PAGE_A（cold）、PAGE_B（warm）、PAGE_A（hot），用完后回收引擎
+     */
+    private void runRound(String containerType, RenderMode renderMode) {
+        String engineId = "benchmark_engine_" + (engineCount++);
+        FakeFlutterEngine fake = new FakeFlutterEngine(application).cache(engineId);
+        fake.appReady();
+        delegate.containerType = containerType;
+
+        open(fake, engineId, renderMode, PAGE_A, OpenLatencyMetrics.TEMPERATURE_COLD);
+        open(fake, engineId, renderMode, PAGE_B, OpenLatencyMetrics.TEMPERATURE_WARM);
+        open(fake, engineId, renderMode, PAGE_A, OpenLatencyMetrics.TEMPERATURE_HOT);
+
+        FlutterEngineCache.getInstance().remove(engineId);
+        FlutterBoost.instance().onEngineReclaimed(engineId);
+        fake.getEngine().destroy();
+    }
+
+    private void open(FakeFlutterEngine fake, String engineId, RenderMode renderMode, String pageName,
+                      String temperature) {
+        String uniqueId = pageName + "_" + System.nanoTime();
+        FlutterBoostRouteOptions options = new FlutterBoostRouteOptions.Builder()
+                .pageName(pageName)
+                .uniqueId(uniqueId)
+                .engineId(engineId)
+                .renderMode(renderMode)
+                .build();
+
+        long openTime = System.nanoTime();
+        FlutterBoost.instance().open(options);
+        idleMainLooper();
+        long containerCreateTime = System.nanoTime();
+        fake.renderFrame();
+        idleMainLooper();
+        long firstFrameTime = System.nanoTime();
+
+        assertNotNull(FlutterContainerManager.instance().findContainerById(uniqueId));
+        metrics.record(OpenLatencyMetrics.key(delegate.containerType, renderMode.name(), temperature),
+                openTime, containerCreateTime, firstFrameTime);
+
+        delegate.closeCurrent();
+        fake.clearFrame();
+        idleMainLooper();
+    }
+
+    private static void idleMainLooper() {
+        // 包括 Choreographer 下一帧的回调，例如 FlutterViewAttachScheduler 合并的 attach/detach
+        shadowOf(Looper.getMainLooper()).idleFor(20, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 按 containerType 把页面打开在 FlutterBoostActivity 或者 FragmentActivity 里的 FlutterBoostFragment 上
+     */
+    private class BenchmarkDelegate implements FlutterBoostDelegate {
+        String containerType;
+        private ActivityController<? extends Activity> current;
+
+        @Override
+        public void pushNativeRoute(FlutterBoostRouteOptions options) {
+        }
+
+        @Override
+        public void pushFlutterRoute(FlutterBoostRouteOptions options) {
+            if (OpenLatencyMetrics.CONTAINER_FRAGMENT.equals(containerType)) {
+                ActivityController<FragmentActivity> host = Robolectric.buildActivity(FragmentActivity.class).setup();
+                FlutterBoostFragment fragment = new FlutterBoostFragment.CachedEngineFragmentBuilder()
+                        .url(options.pageName())
+                        .uniqueId(options.uniqueId())
+                        .engineId(options.engineId())
+                        .renderMode(options.renderMode())
+                        // 透明的 fragment 会退回 texture
+                        .transparencyMode(TransparencyMode.opaque)
+                        .build();
+                host.get().getSupportFragmentManager().beginTransaction()
+                        .add(android.R.id.content, fragment)
+                        .commitNow();
+                current = host;
+            } else {
+                Intent intent = new FlutterBoostActivity.CachedEngineIntentBuilder(FlutterBoostActivity.class)
+                        .url(options.pageName())
+                        .uniqueId(options.uniqueId())
+                        .engineId(options.engineId())
+                        .renderMode(options.renderMode())
+                        .build(application);
+                current = Robolectric.buildActivity(FlutterBoostActivity.class, intent).setup();
+            }
+        }
+
+        void closeCurrent() {
+            if (current != null) {
+                current.pause().stop().destroy();
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.idlefish.flutterboost;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 页面打开耗时统计，只在 OpenLatencyBenchmarkTest 中使用
+ * <p>
+ * 记录从 open 到容器创建、再到首帧上屏的耗时（纳秒），按 容器类型/渲染模式/冷热 分组，
+ * 每组保留最近 MAX_SAMPLES 个样本，可以查询分位数：
+ * <ul>
+ * <li>cold: 页面所在的引擎刚创建，还没有显示过任何页面</li>
+ * <li>warm: 引擎已经显示过别的页面，但这个页面在该引擎上还没有显示过</li>
+ * <li>hot: 这个页面在该引擎上已经显示过</li>
+ * </ul>
+ */
+public class OpenLatencyMetrics {
+    public static final String CONTAINER_ACTIVITY = "activity";
+    public static final String CONTAINER_FRAGMENT = "fragment";
+    public static final String TEMPERATURE_COLD = "cold";
+    public static final String TEMPERATURE_WARM = "warm";
+    public static final String TEMPERATURE_HOT = "hot";
+    // 每组最多保留多少个样本
+    private static final int MAX_SAMPLES = 256;
+
+    private final Map<String, Samples> firstFrameSamples = new LinkedHashMap<>();
+    private final Map<String, Samples> containerCreateSamples = new LinkedHashMap<>();
+
+    private static class Samples {
+        final long[] values = new long[MAX_SAMPLES];
+        int count = 0;
+        int next = 0;
+
+        void add(long value) {
+            values[next] = value;
+            next = (next + 1) % MAX_SAMPLES;
+            if (count < MAX_SAMPLES) {
+                count++;
+            }
+        }
+
+        long percentile(int percent) {
+            if (count == 0) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percent / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+    }
+
+    /**
+     * Builds the key of a sample group, e.g. "activity/texture/cold".
+     */
+    public static String key(String containerType, String renderMode, String temperature) {
+        return containerType + "/" + renderMode + "/" + temperature;
+    }
+
+    /**
+     * Records one open, all times are System.nanoTime() values.
+     */
+    public void record(String key, long openTime, long containerCreateTime, long firstFrameTime) {
+        samples(containerCreateSamples, key).add(containerCreateTime - openTime);
+        samples(firstFrameSamples, key).add(firstFrameTime - openTime);
+    }
+
+    private static Samples samples(Map<String, Samples> table, String key) {
+        Samples samples = table.get(key);
+        if (samples == null) {
+            samples = new Samples();
+            table.put(key, samples);
+        }
+        return samples;
+    }
+
+    /**
+     * Gets the keys of all sample groups, in recording order.
+     */
+    public List<String> getKeys() {
+        return new ArrayList<>(firstFrameSamples.keySet());
+    }
+
+    /**
+     * Gets the given percentile (0-100) of the time from open to first frame, or -1 if there is no sample.
+     */
+    public long getFirstFramePercentile(String key, int percent) {
+        Samples samples = firstFrameSamples.get(key);
+        return samples != null ? samples.percentile(percent) : -1;
+    }
+
+    /**
+     * Gets the given percentile (0-100) of the time from open to container creation, or -1 if there is no sample.
+     */
+    public long getContainerCreatePercentile(String key, int percent) {
+        Samples samples = containerCreateSamples.get(key);
+        return samples != null ? samples.percentile(percent) : -1;
+    }
+
+    /**
+     * Gets the number of samples kept for the key.
+     */
+    public int getSampleCount(String key) {
+        Samples samples = firstFrameSamples.get(key);
+        return samples != null ? samples.count : 0;
+    }
+
+    /**
+     * Clears all samples, e.g. after the warm-up round.
+     */
+    public void reset() {
+        firstFrameSamples.clear();
+        containerCreateSamples.clear();
+    }
+
+    /**
+     * Formats the p50/p90/p99 of every sample group in microseconds.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (String key : getKeys()) {
+            sb.append(key)
+                    .append(" n=").append(getSampleCount(key))
+                    .append(" create[p50=").append(micros(getContainerCreatePercentile(key, 50)))
+                    .append(", p90=").append(micros(getContainerCreatePercentile(key, 90)))
+                    .append(", p99=").append(micros(getContainerCreatePercentile(key, 99)))
+                    .append("] firstFrame[p50=").append(micros(getFirstFramePercentile(key, 50)))
+                    .append(", p90=").append(micros(getFirstFramePercentile(key, 90)))
+                    .append(", p99=").append(micros(getFirstFramePercentile(key, 99)))
+                    .append("] us\n");
+        }
+        return sb.toString();
+    }
+
+    private static long micros(long nanos) {
+        return nanos < 0 ? nanos : nanos / 1000;
+    }
+}
@@ -0,0 +1,132 @@
+package com.idlefish.flutterboost;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class OutboundMessageQueueTest {
+    private final List<String> sent = new ArrayList<>();
+
+    private boolean offer(OutboundMessageQueue queue, String coalesceKey, String name) {
+        return queue.offer(coalesceKey, () -> sent.add(name));
+    }
+
+    @Test
+    public void flushSendsInOfferOrder() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(10, OutboundOverflowPolicy.COALESCE_BY_KEY);
+        offer(queue, "a", "a1");
+        offer(queue, null, "push");
+        offer(queue, "b", "b1");
+        assertEquals(3, queue.size());
+
+        queue.flush();
+        assertEquals(Arrays.asList("a1", "push", "b1"), sent);
+        assertEquals(0, queue.size());
+        assertEquals(3, queue.getQueuedCount());
+        assertEquals(3, queue.getFlushedCount());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void coalesceByKeyDropsOldestOfSameKey() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(3, OutboundOverflowPolicy.COALESCE_BY_KEY);
+        offer(queue, "a", "a1");
+        offer(queue, "b", "b1");
+        offer(queue, "a", "a2");
+        assertTrue(offer(queue, "a", "a3"));
+
+        queue.flush();
+        assertEquals(Arrays.asList("b1", "a2", "a3"), sent);
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void coalesceByKeyFallsBackToOldestKeyed() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(2, OutboundOverflowPolicy.COALESCE_BY_KEY);
+        offer(queue, "a", "a1");
+        offer(queue, "b", "b1");
+        assertTrue(offer(queue, "c", "c1"));
+
+        queue.flush();
+        assertEquals(Arrays.asList("b1", "c1"), sent);
+    }
+
+    @Test
+    public void dropOldestIgnoresKeyOfNewMessage() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(3, OutboundOverflowPolicy.DROP_OLDEST);
+        offer(queue, "a", "a1");
+        offer(queue, "b", "b1");
+        offer(queue, "b", "b2");
+        assertTrue(offer(queue, "b", "b3"));
+
+        queue.flush();
+        assertEquals(Arrays.asList("b1", "b2", "b3"), sent);
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void rejectDropsNewKeyedMessage() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(1, OutboundOverflowPolicy.REJECT);
+        offer(queue, "a", "a1");
+        assertFalse(offer(queue, "a", "a2"));
+
+        queue.flush();
+        assertEquals(Collections.singletonList("a1"), sent);
+        assertEquals(1, queue.getQueuedCount());
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void messagesWithoutKeyAreNeverDropped() {
+        for (OutboundOverflowPolicy policy : OutboundOverflowPolicy.values()) {
+            sent.clear();
+            OutboundMessageQueue queue = new OutboundMessageQueue(2, policy);
+            offer(queue, null, "push1");
+            offer(queue, null, "push2");
+            // 满了之后没有 key 的消息超出容量
+            assertTrue(offer(queue, null, "push3"));
+            // 带 key 的消息只能挤掉带 key 的消息，这里没有可以丢的
+            assertFalse(offer(queue, "a", "a1"));
+
+            queue.flush();
+            assertEquals(policy.name(), Arrays.asList("push1", "push2", "push3"), sent);
+        }
+    }
+
+    @Test
+    public void messageWithoutKeyEvictsKeyedMessageWhenAllowed() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(2, OutboundOverflowPolicy.COALESCE_BY_KEY);
+        offer(queue, "a", "a1");
+        offer(queue, null, "push1");
+        assertTrue(offer(queue, null, "push2"));
+
+        queue.flush();
+        assertEquals(Arrays.asList("push1", "push2"), sent);
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void clearDropsEverything() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(10, OutboundOverflowPolicy.COALESCE_BY_KEY);
+        offer(queue, "a", "a1");
+        offer(queue, null, "push");
+        queue.clear();
+        queue.flush();
+
+        assertTrue(sent.isEmpty());
+        assertEquals(0, queue.size());
+        assertEquals(2, queue.getDroppedCount());
+    }
+}
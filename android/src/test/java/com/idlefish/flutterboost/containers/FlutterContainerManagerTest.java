@@ -0,0 +1,188 @@
+package com.idlefish.flutterboost.containers;
+
+import android.app.Activity;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlutterContainerManagerTest {
+    private final FlutterContainerManager manager = FlutterContainerManager.instance();
+    private final List<String> added = new ArrayList<>();
+    private final Activity activityA = Robolectric.buildActivity(Activity.class).get();
+    private final Activity activityB = Robolectric.buildActivity(Activity.class).get();
+
+    private static class TestContainer implements FlutterViewContainer {
+        private final Activity activity;
+        private final String url;
+        private final String uniqueId;
+        private final String engineId;
+
+        TestContainer(Activity activity, String url, String uniqueId, String engineId) {
+            this.activity = activity;
+            this.url = url;
+            this.uniqueId = uniqueId;
+            this.engineId = engineId;
+        }
+
+        @Override
+        public Activity getContextActivity() {
+            return activity;
+        }
+
+        @Override
+        public String getUrl() {
+            return url;
+        }
+
+        @Override
+        public Map<String, Object> getUrlParams() {
+            return null;
+        }
+
+        @Override
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        @Override
+        public String getCachedEngineId() {
+            return engineId;
+        }
+
+        @Override
+        public void finishContainer(Map<String, Object> result) {
+        }
+    }
+
+    // manager 是单例，用到的 uniqueId 在 tearDown 中移除
+    private TestContainer add(Activity activity, String url, String uniqueId, String engineId) {
+        TestContainer container = new TestContainer(activity, url, uniqueId, engineId);
+        manager.addContainer(uniqueId, container);
+        added.add(uniqueId);
+        return container;
+    }
+
+    @After
+    public void tearDown() {
+        for (String uniqueId : added) {
+            manager.removeContainer(uniqueId);
+        }
+    }
+
+    @Test
+    public void activeContainersFollowActivationOrder() {
+        TestContainer a = add(activityA, "page_a", "manager_test_a", "engine");
+        TestContainer b = add(activityA, "page_b", "manager_test_b", "engine");
+        TestContainer c = add(activityA, "page_c", "manager_test_c", "engine");
+        manager.activateContainer(a.getUniqueId(), a);
+        manager.activateContainer(b.getUniqueId(), b);
+        manager.activateContainer(c.getUniqueId(), c);
+        assertEquals(Arrays.asList(a, b, c), manager.getActiveContainers());
+        assertSame(c, manager.getTopContainer());
+
+        // 激活中间的容器把它移到栈顶
+        manager.activateContainer(a.getUniqueId(), a);
+        assertEquals(Arrays.asList(b, c, a), manager.getActiveContainers());
+        assertTrue(manager.isTopContainer(a.getUniqueId()));
+        assertFalse(manager.isTopContainer(c.getUniqueId()));
+
+        manager.removeContainer(c.getUniqueId());
+        assertEquals(Arrays.asList(b, a), manager.getActiveContainers());
+        manager.removeContainer(a.getUniqueId());
+        assertSame(b, manager.getTopContainer());
+        manager.removeContainer(b.getUniqueId());
+        assertNull(manager.getTopContainer());
+        assertTrue(manager.getActiveContainers().isEmpty());
+    }
+
+    @Test
+    public void addedButNotActivatedContainerIsNotActive() {
+        TestContainer a = add(activityA, "page_a", "manager_test_a", "engine");
+        assertSame(a, manager.findContainerById(a.getUniqueId()));
+        assertTrue(manager.getActiveContainers().isEmpty());
+        assertNull(manager.getTopContainer());
+    }
+
+    @Test
+    public void activeSnapshotIsReusedUntilStackChanges() {
+        TestContainer a = add(activityA, "page_a", "manager_test_a", "engine");
+        TestContainer b = add(activityA, "page_b", "manager_test_b", "engine");
+        manager.activateContainer(a.getUniqueId(), a);
+        List<FlutterViewContainer> first = manager.getActiveContainers();
+        assertSame(first, manager.getActiveContainers());
+        // 激活栈顶没有变化
+        manager.activateContainer(a.getUniqueId(), a);
+        assertSame(first, manager.getActiveContainers());
+
+        manager.activateContainer(b.getUniqueId(), b);
+        List<FlutterViewContainer> second = manager.getActiveContainers();
+        assertEquals(Collections.singletonList(a), first);
+        assertEquals(Arrays.asList(a, b), second);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void activeSnapshotIsImmutable() {
+        TestContainer a = add(activityA, "page_a", "manager_test_a", "engine");
+        manager.activateContainer(a.getUniqueId(), a);
+        manager.getActiveContainers().clear();
+    }
+
+    @Test
+    public void indexesByActivityUrlAndEngine() {
+        TestContainer a = add(activityA, "page", "manager_test_a", "engine_1");
+        TestContainer b = add(activityA, "page_b", "manager_test_b", "engine_1");
+        TestContainer c = add(activityB, "page", "manager_test_c", "engine_2");
+
+        assertEquals(Arrays.asList(a, b), manager.getContainersByActivity(activityA));
+        assertEquals(Collections.singletonList(c), manager.getContainersByActivity(activityB));
+        assertEquals(Arrays.asList(a, c), manager.getContainersByUrl("page"));
+        assertEquals(2, manager.getContainerSize("engine_1"));
+        assertEquals(1, manager.getContainerSize("engine_2"));
+
+        manager.removeContainer(a.getUniqueId());
+        assertEquals(Collections.singletonList(b), manager.getContainersByActivity(activityA));
+        assertEquals(Collections.singletonList(c), manager.getContainersByUrl("page"));
+        assertEquals(1, manager.getContainerSize("engine_1"));
+
+        manager.removeContainer(c.getUniqueId());
+        assertTrue(manager.getContainersByActivity(activityB).isEmpty());
+        assertTrue(manager.getContainersByUrl("page").isEmpty());
+        assertEquals(0, manager.getContainerSize("engine_2"));
+    }
+
+    @Test
+    public void addingSameIdReplacesTheOldContainer() {
+        TestContainer old = add(activityA, "page_old", "manager_test_a", "engine_1");
+        manager.activateContainer(old.getUniqueId(), old);
+        int size = manager.getContainerSize();
+        TestContainer replaced = add(activityB, "page_new", "manager_test_a", "engine_2");
+
+        assertSame(replaced, manager.findContainerById("manager_test_a"));
+        assertEquals(size, manager.getContainerSize());
+        // 旧容器的索引和激活状态都被清理
+        assertTrue(manager.getActiveContainers().isEmpty());
+        assertTrue(manager.getContainersByUrl("page_old").isEmpty());
+        assertTrue(manager.getContainersByActivity(activityA).isEmpty());
+        assertEquals(0, manager.getContainerSize("engine_1"));
+        assertEquals(Collections.singletonList(replaced), manager.getContainersByUrl("page_new"));
+        assertEquals(1, manager.getContainerSize("engine_2"));
+    }
+}
@@ -0,0 +1,180 @@
+package com.idlefish.flutterboost.containers;
+
+import android.app.Application;
+import android.graphics.Bitmap;
+import android.os.Looper;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.embedding.android.FlutterView;
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.plugins.PluginRegistry;
+import io.flutter.embedding.engine.renderer.FlutterRenderer;
+import io.flutter.embedding.engine.renderer.FlutterUiDisplayListener;
+import io.flutter.embedding.engine.systemchannels.LifecycleChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlutterViewAttachSchedulerTest {
+    // 没有注册 FlutterBoostPlugin 的引擎，生命周期直接发到 LifecycleChannel
+    private final FlutterEngine engine = mockEngine();
+
+    private static FlutterEngine mockEngine() {
+        FlutterEngine engine = mock(FlutterEngine.class);
+        when(engine.getPlugins()).thenReturn(mock(PluginRegistry.class));
+        when(engine.getLifecycleChannel()).thenReturn(mock(LifecycleChannel.class));
+        // 正在显示 flutter 页面，detach 前可以截图
+        FlutterRenderer renderer = mock(FlutterRenderer.class);
+        when(renderer.isDisplayingFlutterUi()).thenReturn(true);
+        when(renderer.getBitmap()).thenReturn(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+        when(engine.getRenderer()).thenReturn(renderer);
+        return engine;
+    }
+
+    /**
+     * isAttachedToFlutterEngine 跟随 attachToFlutterEngine/detachFromFlutterEngine 变化的 mock FlutterView
+     */
+    private static FlutterView mockFlutterView(boolean attached) {
+        FlutterView flutterView = mock(FlutterView.class);
+        final boolean[] state = {attached};
+        when(flutterView.isAttachedToFlutterEngine()).thenAnswer(invocation -> state[0]);
+        doAnswer(invocation -> {
+            state[0] = true;
+            return null;
+        }).when(flutterView).attachToFlutterEngine(any(FlutterEngine.class));
+        doAnswer(invocation -> {
+            state[0] = false;
+            return null;
+        }).when(flutterView).detachFromFlutterEngine();
+        return flutterView;
+    }
+
+    private static void runNextFrame() {
+        shadowOf(Looper.getMainLooper()).idleFor(20, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        FlutterViewAttachScheduler.flush();
+    }
+
+    @Test
+    public void requestsRunOnTheNextFrame() {
+        FlutterView flutterView = mockFlutterView(false);
+        FlutterViewAttachScheduler.requestAttach(flutterView, engine, null);
+        verify(flutterView, never()).attachToFlutterEngine(any(FlutterEngine.class));
+
+        runNextFrame();
+        verify(flutterView).attachToFlutterEngine(engine);
+        assertTrue(flutterView.isAttachedToFlutterEngine());
+    }
+
+    @Test
+    public void keepsOnlyTheLastRequestOfAView() {
+        FlutterView flutterView = mockFlutterView(false);
+        FlutterViewAttachScheduler.requestAttach(flutterView, engine, null);
+        FlutterViewAttachScheduler.requestDetach(flutterView, engine, null);
+        FlutterViewAttachScheduler.requestAttach(flutterView, engine, null);
+        runNextFrame();
+
+        verify(flutterView, times(1)).attachToFlutterEngine(engine);
+        verify(flutterView, never()).detachFromFlutterEngine();
+    }
+
+    @Test
+    public void skipsRequestMatchingCurrentState() {
+        FlutterView flutterView = mockFlutterView(true);
+        // 例如快速切走又切回来
+        FlutterViewAttachScheduler.requestDetach(flutterView, engine, null);
+        FlutterViewAttachScheduler.requestAttach(flutterView, engine, null);
+        runNextFrame();
+
+        verify(flutterView, never()).detachFromFlutterEngine();
+        verify(flutterView, never()).attachToFlutterEngine(any(FlutterEngine.class));
+        assertTrue(flutterView.isAttachedToFlutterEngine());
+    }
+
+    @Test
+    public void detachesBeforeAttaching() {
+        Application application = RuntimeEnvironment.application;
+        FlutterView entering = mockFlutterView(false);
+        FlutterView leaving = mockFlutterView(true);
+        FrameLayout leavingParent = new FrameLayout(application);
+        when(leaving.getParent()).thenReturn(leavingParent);
+        when(leaving.getContext()).thenReturn(application);
+        FlutterBoostActivity leavingContainer = mock(FlutterBoostActivity.class);
+        // 进入的容器先请求 attach，仍然要等离开的容器 detach 之后
+        FlutterViewAttachScheduler.requestAttach(entering, engine, null);
+        FlutterViewAttachScheduler.requestDetach(leaving, engine, leavingContainer);
+        runNextFrame();
+
+        InOrder order = inOrder(leaving, entering);
+        order.verify(leaving).detachFromFlutterEngine();
+        order.verify(entering).attachToFlutterEngine(engine);
+        assertFalse(leaving.isAttachedToFlutterEngine());
+        assertTrue(entering.isAttachedToFlutterEngine());
+
+        // 没有打开 snapshotPlaceholder，离开的容器仍然被截图盖住，直到进入的容器画出第一帧
+        assertNotNull(leavingContainer.snapshotPlaceholder);
+        assertEquals(1, leavingParent.getChildCount());
+        ArgumentCaptor<FlutterUiDisplayListener> firstFrame = ArgumentCaptor.forClass(FlutterUiDisplayListener.class);
+        verify(entering).addOnFirstFrameRenderedListener(firstFrame.capture());
+        runNextFrame();
+        assertNotNull(leavingContainer.snapshotPlaceholder);
+
+        firstFrame.getValue().onFlutterUiDisplayed();
+        assertNull(leavingContainer.snapshotPlaceholder);
+        assertEquals(0, leavingParent.getChildCount());
+    }
+
+    @Test
+    public void flushRunsPendingRequestsOnce() {
+        FlutterView flutterView = mockFlutterView(false);
+        FlutterViewAttachScheduler.requestAttach(flutterView, engine, null);
+        FlutterViewAttachScheduler.flush();
+        verify(flutterView, times(1)).attachToFlutterEngine(engine);
+
+        // 已经取消的帧回调不会再执行一次
+        runNextFrame();
+        verify(flutterView, times(1)).attachToFlutterEngine(engine);
+    }
+
+    @Test
+    public void cancelAttachKeepsPendingDetach() {
+        FlutterView destroyed = mockFlutterView(false);
+        FlutterView leaving = mockFlutterView(true);
+        FlutterViewAttachScheduler.requestAttach(destroyed, engine, null);
+        FlutterViewAttachScheduler.requestDetach(leaving, engine, null);
+        FlutterViewAttachScheduler.cancelAttach(destroyed);
+        FlutterViewAttachScheduler.cancelAttach(leaving);
+        runNextFrame();
+
+        verify(destroyed, never()).attachToFlutterEngine(any(FlutterEngine.class));
+        verify(leaving).detachFromFlutterEngine();
+    }
+}
@@ -28,6 +28,8 @@ public class MyFlutterBoostDelegate implements FlutterBoostDelegate {
                 .uniqueId(options.uniqueId())
                 .url(options.pageName())
                 .urlParams(options.arguments())
+                .engineId(options.engineId())
+                .renderMode(options.renderMode())
                 .build(FlutterBoost.instance().currentActivity());
         FlutterBoost.instance().currentActivity().startActivity(intent);
     }
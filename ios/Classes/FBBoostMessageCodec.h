@@ -0,0 +1,9 @@
+#import <Flutter/Flutter.h>
+
+NS_ASSUME_NONNULL_BEGIN
+
+/// pigeon 生成的 messages.m 中所有 channel 使用的 codec，
+/// FBCommonParams 和 FBStackInfo 按固定字段顺序编码，不经过 NSDictionary
+NSObject<FlutterMessageCodec>* FBBoostMessageCodecGet(void);
+
+NS_ASSUME_NONNULL_END
@@ -0,0 +1,81 @@
+#import "FBBoostMessageCodec.h"
+#import "messages.h"
+
+#if !__has_feature(objc_arc)
+#error File requires ARC to be enabled.
+#endif
+
+static id FBNilIfNull(id value) {
+  return value == [NSNull null] ? nil : value;
+}
+
+// CommonParams 和 StackInfo 按固定字段顺序编码，不经过 NSDictionary，
+// 和 Android 的 BoostMessageCodec、dart 的 BoostMessageCodec 格式一致
+@interface FBMessagesReader : FlutterStandardReader
+@end
+@implementation FBMessagesReader
+- (nullable id)readValueOfType:(UInt8)type {
+  switch (type) {
+    case 128: {
+      FBCommonParams* result = [[FBCommonParams alloc] init];
+      result.pageName = FBNilIfNull([self readValue]);
+      result.uniqueId = FBNilIfNull([self readValue]);
+      result.arguments = FBNilIfNull([self readValue]);
+      result.opaque = FBNilIfNull([self readValue]);
+      result.key = FBNilIfNull([self readValue]);
+      return result;
+    }
+    case 129: {
+      FBStackInfo* result = [[FBStackInfo alloc] init];
+      result.containers = FBNilIfNull([self readValue]);
+      result.routes = FBNilIfNull([self readValue]);
+      return result;
+    }
+    default:
+      return [super readValueOfType:type];
+  }
+}
+@end
+
+@interface FBMessagesWriter : FlutterStandardWriter
+@end
+@implementation FBMessagesWriter
+- (void)writeValue:(id)value {
+  if ([value isKindOfClass:[FBCommonParams class]]) {
+    FBCommonParams* params = value;
+    [self writeByte:128];
+    [self writeValue:(params.pageName ? params.pageName : [NSNull null])];
+    [self writeValue:(params.uniqueId ? params.uniqueId : [NSNull null])];
+    [self writeValue:(params.arguments ? params.arguments : [NSNull null])];
+    [self writeValue:(params.opaque ? params.opaque : [NSNull null])];
+    [self writeValue:(params.key ? params.key : [NSNull null])];
+  } else if ([value isKindOfClass:[FBStackInfo class]]) {
+    FBStackInfo* info = value;
+    [self writeByte:129];
+    [self writeValue:(info.containers ? info.containers : [NSNull null])];
+    [self writeValue:(info.routes ? info.routes : [NSNull null])];
+  } else {
+    [super writeValue:value];
+  }
+}
+@end
+
+@interface FBMessagesReaderWriter : FlutterStandardReaderWriter
+@end
+@implementation FBMessagesReaderWriter
+- (FlutterStandardWriter *)writerWithData:(NSMutableData *)data {
+  return [[FBMessagesWriter alloc] initWithData:data];
+}
+- (FlutterStandardReader *)readerWithData:(NSData *)data {
+  return [[FBMessagesReader alloc] initWithData:data];
+}
+@end
+
+NSObject<FlutterMessageCodec>* FBBoostMessageCodecGet(void) {
+  static FlutterStandardMessageCodec* codec = nil;
+  static dispatch_once_t onceToken;
+  dispatch_once(&onceToken, ^{
+    codec = [FlutterStandardMessageCodec codecWithReaderWriter:[[FBMessagesReaderWriter alloc] init]];
+  });
+  return codec;
+}
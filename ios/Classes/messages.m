@@ -1,13 +1,17 @@
 // Autogenerated from Pigeon (v0.1.23), do not edit directly.
 // See also: https://pub.dev/packages/pigeon
+// The channels use FBBoostMessageCodecGet() from FBBoostMessageCodec.h instead of
+// FlutterStandardMessageCodec, and the FB*Decode helpers accept the decoded objects it returns.
+// Keep both edits when regenerating.
 #import "messages.h"
+#import "FBBoostMessageCodec.h"
 #import <Flutter/Flutter.h>
 
 #if !__has_feature(objc_arc)
 #error File requires ARC to be enabled.
 #endif
 
-static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterError *error) {
+static NSDictionary<NSString*, id>* wrapResult(id result, FlutterError *error) {
   NSDictionary *errorDict = (NSDictionary *)[NSNull null];
   if (error) {
     errorDict = @{
@@ -79,6 +83,14 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
 }
 @end
 
+static FBCommonParams* FBCommonParamsDecode(id message) {
+  return [message isKindOfClass:[FBCommonParams class]] ? message : [FBCommonParams fromMap:message];
+}
+
+static FBStackInfo* FBStackInfoDecode(id message) {
+  return [message isKindOfClass:[FBStackInfo class]] ? message : [FBStackInfo fromMap:message];
+}
+
 @interface FBFlutterRouterApi ()
 @property (nonatomic, strong) NSObject<FlutterBinaryMessenger>* binaryMessenger;
 @end
@@ -96,9 +108,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.pushRoute"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -106,9 +118,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.popRoute"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -116,9 +128,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.removeRoute"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -126,9 +138,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.onForeground"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -136,9 +148,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.onBackground"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -146,9 +158,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.onNativeResult"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -156,9 +168,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.onContainerShow"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -166,9 +178,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.onContainerHide"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -176,9 +188,9 @@ static NSDictionary<NSString*, id>* wrapResult(NSDictionary *result, FlutterErro
   FlutterBasicMessageChannel *channel =
     [FlutterBasicMessageChannel
       messageChannelWithName:@"dev.flutter.pigeon.FlutterRouterApi.sendEventToFlutter"
-      binaryMessenger:self.binaryMessenger];
-  NSDictionary* inputMap = [input toMap];
-  [channel sendMessage:inputMap reply:^(id reply) {
+      binaryMessenger:self.binaryMessenger
+      codec:FBBoostMessageCodecGet()];
+  [channel sendMessage:input reply:^(id reply) {
     completion(nil);
   }];
 }
@@ -188,10 +200,11 @@ void FBNativeRouterApiSetup(id<FlutterBinaryMessenger> binaryMessenger, id<FBNat
     FlutterBasicMessageChannel *channel =
       [FlutterBasicMessageChannel
         messageChannelWithName:@"dev.flutter.pigeon.NativeRouterApi.pushNativeRoute"
-        binaryMessenger:binaryMessenger];
+        binaryMessenger:binaryMessenger
+        codec:FBBoostMessageCodecGet()];
     if (api) {
       [channel setMessageHandler:^(id _Nullable message, FlutterReply callback) {
-        FBCommonParams *input = [FBCommonParams fromMap:message];
+        FBCommonParams *input = FBCommonParamsDecode(message);
         FlutterError *error;
         [api pushNativeRoute:input error:&error];
         callback(wrapResult(nil, error));
@@ -205,10 +218,11 @@ void FBNativeRouterApiSetup(id<FlutterBinaryMessenger> binaryMessenger, id<FBNat
     FlutterBasicMessageChannel *channel =
       [FlutterBasicMessageChannel
         messageChannelWithName:@"dev.flutter.pigeon.NativeRouterApi.pushFlutterRoute"
-        binaryMessenger:binaryMessenger];
+        binaryMessenger:binaryMessenger
+        codec:FBBoostMessageCodecGet()];
     if (api) {
       [channel setMessageHandler:^(id _Nullable message, FlutterReply callback) {
-        FBCommonParams *input = [FBCommonParams fromMap:message];
+        FBCommonParams *input = FBCommonParamsDecode(message);
         FlutterError *error;
         [api pushFlutterRoute:input error:&error];
         callback(wrapResult(nil, error));
@@ -222,10 +236,11 @@ void FBNativeRouterApiSetup(id<FlutterBinaryMessenger> binaryMessenger, id<FBNat
     FlutterBasicMessageChannel *channel =
       [FlutterBasicMessageChannel
         messageChannelWithName:@"dev.flutter.pigeon.NativeRouterApi.popRoute"
-        binaryMessenger:binaryMessenger];
+        binaryMessenger:binaryMessenger
+        codec:FBBoostMessageCodecGet()];
     if (api) {
       [channel setMessageHandler:^(id _Nullable message, FlutterReply callback) {
-        FBCommonParams *input = [FBCommonParams fromMap:message];
+        FBCommonParams *input = FBCommonParamsDecode(message);
         FlutterError *error;
         [api popRoute:input error:&error];
         callback(wrapResult(nil, error));
@@ -239,12 +254,13 @@ void FBNativeRouterApiSetup(id<FlutterBinaryMessenger> binaryMessenger, id<FBNat
     FlutterBasicMessageChannel *channel =
       [FlutterBasicMessageChannel
         messageChannelWithName:@"dev.flutter.pigeon.NativeRouterApi.getStackFromHost"
-        binaryMessenger:binaryMessenger];
+        binaryMessenger:binaryMessenger
+        codec:FBBoostMessageCodecGet()];
     if (api) {
       [channel setMessageHandler:^(id _Nullable message, FlutterReply callback) {
         FlutterError *error;
         FBStackInfo *output = [api getStackFromHost:&error];
-        callback(wrapResult([output toMap], error));
+        callback(wrapResult(output, error));
       }];
     }
     else {
@@ -255,10 +271,11 @@ void FBNativeRouterApiSetup(id<FlutterBinaryMessenger> binaryMessenger, id<FBNat
     FlutterBasicMessageChannel *channel =
       [FlutterBasicMessageChannel
         messageChannelWithName:@"dev.flutter.pigeon.NativeRouterApi.saveStackToHost"
-        binaryMessenger:binaryMessenger];
+        binaryMessenger:binaryMessenger
+        codec:FBBoostMessageCodecGet()];
     if (api) {
       [channel setMessageHandler:^(id _Nullable message, FlutterReply callback) {
-        FBStackInfo *input = [FBStackInfo fromMap:message];
+        FBStackInfo *input = FBStackInfoDecode(message);
         FlutterError *error;
         [api saveStackToHost:input error:&error];
         callback(wrapResult(nil, error));
@@ -272,10 +289,11 @@ void FBNativeRouterApiSetup(id<FlutterBinaryMessenger> binaryMessenger, id<FBNat
     FlutterBasicMessageChannel *channel =
       [FlutterBasicMessageChannel
         messageChannelWithName:@"dev.flutter.pigeon.NativeRouterApi.sendEventToNative"
-        binaryMessenger:binaryMessenger];
+        binaryMessenger:binaryMessenger
+        codec:FBBoostMessageCodecGet()];
     if (api) {
       [channel setMessageHandler:^(id _Nullable message, FlutterReply callback) {
-        FBCommonParams *input = [FBCommonParams fromMap:message];
+        FBCommonParams *input = FBCommonParamsDecode(message);
         FlutterError *error;
         [api sendEventToNative:input error:&error];
         callback(wrapResult(nil, error));
@@ -1,3 +1,5 @@
+import 'dart:typed_data';
+
 import 'package:flutter/cupertino.dart';
 
 import 'flutter_boost_app.dart';
@@ -5,6 +7,7 @@ import 'messages.dart';
 import 'overlay_entry.dart';
 
 typedef EventListener = Future<dynamic> Function(String key, Map arguments);
+typedef RequestHandler = Future<Map> Function(String key, Map arguments);
 
 /// The [BoostChannel] is a tool to get [FlutterBoostAppState]
 /// to operate the Custom events
@@ -43,4 +46,39 @@ class BoostChannel {
       ..arguments = args;
     _appState.nativeRouterApi.sendEventToNative(params);
   }
+
+  ///Send a binary event to native with [key] and [payload].
+  ///The payload is handed to the engine without copies, and the native
+  ///listener receives {"payload": ByteBuffer}
+  void sendBinaryEventToNative(String key, ByteData payload) {
+    assert(key != null && payload != null);
+    _appState.sendBinaryEventToNative(key, payload);
+  }
+
+  ///Send a request to the native handler of [key] registered by
+  ///FlutterBoost.addRequestHandler, and get its response.
+  ///Fails with a [PlatformException] whose code is the error of the response,
+  ///e.g. "no_handler", or with a [TimeoutException] after [timeout] if it is given
+  Future<Map> request(String key, Map args, {Duration timeout}) {
+    assert(key != null);
+    return _appState.request(key, args, timeout: timeout);
+  }
+
+  ///Handle the requests of [key] sent by FlutterBoost.requestFromFlutter
+  ///on native side, the result of [handler] is the response.
+  ///
+  ///The [VoidCallback] is to remove this handler
+  VoidCallback addRequestHandler(String key, RequestHandler handler) {
+    return _appState.addRequestHandler(key, handler);
+  }
+
+  ///Subscribe the native stream [name] opened by FlutterBoost.openStream,
+  ///each item is the batch of values written since the last vsync.
+  ///[uniqueId] is the id of the subscribing container, e.g.
+  ///BoostContainer.of(context).pageInfo.uniqueId, the stream pauses while
+  ///it is hidden. Cancel the subscription to unsubscribe
+  Stream<List> subscribeStream(String name, String uniqueId) {
+    assert(name != null && uniqueId != null);
+    return _appState.subscribeStream(name, uniqueId);
+  }
 }
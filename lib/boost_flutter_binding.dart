@@ -3,7 +3,8 @@ import 'package:flutter/scheduler.dart';
 import 'logger.dart';
 
 /// 这里 处理了 flutter app 生命周期相关
-mixin BoostFlutterBinding on WidgetsFlutterBinding {
+/// 只依赖 WidgetsBinding，测试中可以混入 AutomatedTestWidgetsFlutterBinding
+mixin BoostFlutterBinding on WidgetsBinding {
   bool _appLifecycleStateLocked = true;
 
   @override
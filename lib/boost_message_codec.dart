@@ -0,0 +1,69 @@
+import 'package:flutter/foundation.dart' show ReadBuffer, WriteBuffer;
+import 'package:flutter/services.dart';
+
+import 'messages.dart';
+
+/// Encodes [CommonParams] and [StackInfo] as their field values in a fixed
+/// order, without an intermediate map or field names on the wire.
+/// Must match BoostMessageCodec on Android and FBBoostMessageCodec on iOS.
+class BoostMessageCodec extends StandardMessageCodec {
+  const BoostMessageCodec();
+
+  static const int _commonParams = 128;
+  static const int _stackInfo = 129;
+  static const int _maxInterned = 256;
+  static final Map<String, String> _interned = <String, String>{};
+
+  static String _intern(Object value) {
+    final String string = value as String;
+    if (string == null) {
+      return null;
+    }
+    final String existing = _interned[string];
+    if (existing != null) {
+      return existing;
+    }
+    if (_interned.length >= _maxInterned) {
+      _interned.clear();
+    }
+    _interned[string] = string;
+    return string;
+  }
+
+  @override
+  void writeValue(WriteBuffer buffer, Object value) {
+    if (value is CommonParams) {
+      buffer.putUint8(_commonParams);
+      writeValue(buffer, value.pageName);
+      writeValue(buffer, value.uniqueId);
+      writeValue(buffer, value.arguments);
+      writeValue(buffer, value.opaque);
+      writeValue(buffer, value.key);
+    } else if (value is StackInfo) {
+      buffer.putUint8(_stackInfo);
+      writeValue(buffer, value.containers);
+      writeValue(buffer, value.routes);
+    } else {
+      super.writeValue(buffer, value);
+    }
+  }
+
+  @override
+  Object readValueOfType(int type, ReadBuffer buffer) {
+    switch (type) {
+      case _commonParams:
+        return CommonParams()
+          ..pageName = _intern(readValue(buffer))
+          ..uniqueId = _intern(readValue(buffer))
+          ..arguments = readValue(buffer) as Map<Object, Object>
+          ..opaque = readValue(buffer) as bool
+          ..key = readValue(buffer) as String;
+      case _stackInfo:
+        return StackInfo()
+          ..containers = readValue(buffer) as List<Object>
+          ..routes = readValue(buffer) as Map<Object, Object>;
+      default:
+        return super.readValueOfType(type, buffer);
+    }
+  }
+}
@@ -1,7 +1,11 @@
 import 'dart:async';
+import 'dart:collection';
+import 'dart:typed_data';
 
 import 'package:flutter/foundation.dart';
 import 'package:flutter/material.dart';
+import 'package:flutter/scheduler.dart';
+import 'package:flutter/services.dart';
 import 'package:flutter/widgets.dart';
 
 import 'boost_channel.dart';
@@ -18,6 +22,10 @@ import 'overlay_entry.dart';
 // ignore: public_member_api_docs
 typedef FlutterBoostAppBuilder = Widget Function(Widget home);
 
+///Whether the page of [pageName] can be prewarmed, that is built without
+///arguments and without depending on the uniqueId passed to the route factory
+typedef PrewarmPredicate = bool Function(String pageName);
+
 /// flutter boost flutter 侧的入口
 class FlutterBoostApp extends StatefulWidget {
   // ignore: public_member_api_docs
@@ -31,6 +39,9 @@ class FlutterBoostApp extends StatefulWidget {
 
     ///路由拦截器
     List<BoostInterceptor> interceptors,
+
+    ///可以预热的页面，默认不预热任何页面
+    this.canPrewarm,
   })  : appBuilder = appBuilder ?? _materialAppBuilder,
         interceptors = interceptors ?? <BoostInterceptor>[],
         initialRoute = initialRoute ?? '/' {
@@ -43,6 +54,11 @@ class FlutterBoostApp extends StatefulWidget {
   ///A list of [BoostInterceptor],to intercept operations when push
   final List<BoostInterceptor> interceptors;
 
+  ///Pages that native asks to prewarm are skipped unless this returns true.
+  ///A prewarmed page is built with empty arguments and is only used by a
+  ///push without arguments, so pages that need arguments must return false.
+  final PrewarmPredicate canPrewarm;
+
   static Widget _materialAppBuilder(Widget home) {
     return MaterialApp(home: home);
   }
@@ -53,6 +69,21 @@ class FlutterBoostApp extends StatefulWidget {
 
 class FlutterBoostAppState extends State<FlutterBoostApp> {
   static const String _appLifecycleChangedKey = "app_lifecycle_changed_key";
+  static const String _appReadyKey = "app_ready_key";
+  static const String _prewarmRoutesKey = "prewarm_routes_key";
+  static const String _prewarmDoneKey = "prewarm_done_key";
+  static const String _containerTransitionKey = "container_transition_key";
+  static const String _binaryEventKey = "binary_event_key";
+  static const String _eventRequestKey = "event_request_key";
+  static const String _eventResponseKey = "event_response_key";
+  static const String _streamSubscribeKey = "stream_subscribe_key";
+  static const String _streamUnsubscribeKey = "stream_unsubscribe_key";
+  static const String _streamBatchKey = "stream_batch_key";
+
+  ///The payloads of binary events travel on this channel without copies,
+  ///their keys are sent just before as [_binaryEventKey] events
+  static const BasicMessageChannel<ByteData> binaryEventChannel =
+      BasicMessageChannel<ByteData>('flutter_boost/binary_event', BinaryCodec());
 
   final Map<String, Completer<Object>> _pendingResult = <String, Completer<Object>>{};
 
@@ -78,6 +109,23 @@ class FlutterBoostAppState extends State<FlutterBoostApp> {
   final Map<String, List<EventListener>> _listenersTable = <String, List<EventListener>>{};
 
   VoidCallback _lifecycleStateListenerRemover;
+  VoidCallback _prewarmRoutesListenerRemover;
+  VoidCallback _containerTransitionListenerRemover;
+  VoidCallback _binaryEventListenerRemover;
+  final Queue<String> _pendingBinaryEventKeys = Queue<String>();
+  VoidCallback _eventRequestListenerRemover;
+  VoidCallback _eventResponseListenerRemover;
+  final Map<String, RequestHandler> _requestHandlers = <String, RequestHandler>{};
+  //发给 native 的请求，key 为请求 id，收到响应或超时后移除
+  final Map<int, Completer<Map>> _pendingRequests = <int, Completer<Map>>{};
+  int _nextRequestId = 0;
+  VoidCallback _streamBatchListenerRemover;
+  //native stream 的订阅，key 为订阅 id
+  final Map<int, StreamController<List>> _streamSubscriptions = <int, StreamController<List>>{};
+  int _nextStreamSubscriptionId = 0;
+
+  //预热页面的容器，key 为 pageName，真正打开该页面时直接使用
+  final Map<String, BoostContainer> _prewarmedContainers = <String, BoostContainer>{};
 
   @override
   void initState() {
@@ -94,6 +142,11 @@ class FlutterBoostAppState extends State<FlutterBoostApp> {
     _nativeRouterApi = NativeRouterApi();
     // 初始化 BoostFlutterRouterApi (原生调用flutter)
     _boostFlutterRouterApi = BoostFlutterRouterApi(this);
+    // 容器切换消息和 pushRoute 一样，channel 建立后就要能处理
+    _addContainerTransitionEventListener();
+    _addBinaryEventListener();
+    _addRequestEventListeners();
+    _addStreamBatchEventListener();
     super.initState();
 
     // Refresh the containers data to overlayKey to show the page matching
@@ -106,6 +159,9 @@ class FlutterBoostAppState extends State<FlutterBoostApp> {
       refresh();
       //发送生命周期事件
       _addAppLifecycleStateEventListener();
+      _addPrewarmRoutesEventListener();
+      //通知 native 侧 flutter 已经可以接收消息了
+      BoostChannel.instance.sendEventToNative(_appReadyKey, <String, dynamic>{});
     });
 
     //setup the AppLifecycleState change event launched from native
@@ -130,22 +186,289 @@ class FlutterBoostAppState extends State<FlutterBoostApp> {
       //and 0 is resumed
       //and 2 is paused
 
-      final int index = arguments["lifecycleState"];
+      _changeAppLifecycleState(arguments["lifecycleState"]);
+      return;
+    });
+  }
+
+  void _changeAppLifecycleState(int index) {
+    if (index == AppLifecycleState.resumed.index) {
+      Logger.log("_changeAppLifecycleState resume");
+      BoostFlutterBinding.instance.changeAppLifecycleState(AppLifecycleState.resumed);
+    } else if (index == AppLifecycleState.paused.index) {
+      Logger.log("_changeAppLifecycleState pause");
+      BoostFlutterBinding.instance.changeAppLifecycleState(AppLifecycleState.paused);
+    }
+  }
+
+  ///Setup the container transition event launched from native,
+  ///which batches the hide/push/show/remove/lifecycle steps of a page switch
+  ///so they are applied in one go, without intermediate frames
+  void _addContainerTransitionEventListener() {
+    _containerTransitionListenerRemover = addEventListener(_containerTransitionKey, (key, arguments) {
+      final List<Object> steps = arguments["steps"] ?? <Object>[];
+      for (final Map<Object, Object> step in steps.cast<Map<Object, Object>>()) {
+        _applyTransitionStep(step);
+      }
+      return;
+    });
+  }
+
+  ///Pair the binary payloads from native with the keys sent before them,
+  ///and deliver them to the listeners of the key as {"payload": ByteData}
+  void _addBinaryEventListener() {
+    _binaryEventListenerRemover = addEventListener(_binaryEventKey, (key, arguments) {
+      _pendingBinaryEventKeys.add(arguments["key"]);
+      return;
+    });
+    binaryEventChannel.setMessageHandler((ByteData payload) async {
+      if (_pendingBinaryEventKeys.isEmpty) {
+        Logger.log('binary event without key, dropped');
+        return null;
+      }
+      onReceiveEventFromNative(CommonParams()
+        ..key = _pendingBinaryEventKeys.removeFirst()
+        ..arguments = <Object, Object>{"payload": payload});
+      return null;
+    });
+  }
 
-      if (index == AppLifecycleState.resumed.index) {
-        Logger.log("_addAppLifecycleStateEventListener resume");
-        BoostFlutterBinding.instance.changeAppLifecycleState(AppLifecycleState.resumed);
-      } else if (index == AppLifecycleState.paused.index) {
-        Logger.log("_addAppLifecycleStateEventListener pause");
-        BoostFlutterBinding.instance.changeAppLifecycleState(AppLifecycleState.paused);
+  ///Send a binary event to native, the native listener of [key]
+  ///receives {"payload": ByteBuffer} without an intermediate copy
+  void sendBinaryEventToNative(String key, ByteData payload) {
+    nativeRouterApi.sendEventToNative(CommonParams()
+      ..key = _binaryEventKey
+      ..arguments = <Object, Object>{"key": key});
+    binaryEventChannel.send(payload);
+  }
+
+  ///Requests in both directions are events with a request id,
+  ///answered by an [_eventResponseKey] event carrying the same id
+  void _addRequestEventListeners() {
+    _eventRequestListenerRemover = addEventListener(_eventRequestKey, (key, arguments) async {
+      final String requestKey = arguments["key"];
+      final Object id = arguments["id"];
+      final RequestHandler handler = _requestHandlers[requestKey];
+      final Map<Object, Object> response = <Object, Object>{"id": id};
+      if (handler == null) {
+        response["error"] = "no_handler";
+      } else {
+        try {
+          response["result"] = await handler(requestKey, arguments["arguments"] ?? <Object, Object>{});
+        } catch (e) {
+          response["error"] = e.toString();
+        }
+      }
+      nativeRouterApi.sendEventToNative(CommonParams()
+        ..key = _eventResponseKey
+        ..arguments = response);
+    });
+    _eventResponseListenerRemover = addEventListener(_eventResponseKey, (key, arguments) {
+      final Completer<Map> completer = _pendingRequests.remove(arguments["id"]);
+      if (completer == null) {
+        //已经超时
+        return;
+      }
+      final Object error = arguments["error"];
+      if (error != null) {
+        completer.completeError(PlatformException(code: error.toString()));
+      } else {
+        completer.complete(arguments["result"] ?? <Object, Object>{});
       }
       return;
     });
   }
 
+  ///Send a request to the native handler of [key] and wait for its response,
+  ///fails with a [PlatformException] whose code is the error of the response,
+  ///or with a [TimeoutException] after [timeout] if it is given
+  Future<Map> request(String key, Map args, {Duration timeout}) {
+    final int id = _nextRequestId++;
+    final Completer<Map> completer = Completer<Map>();
+    _pendingRequests[id] = completer;
+    nativeRouterApi.sendEventToNative(CommonParams()
+      ..key = _eventRequestKey
+      ..arguments = <Object, Object>{"key": key, "id": id, "arguments": args ?? <Object, Object>{}});
+    if (timeout == null) {
+      return completer.future;
+    }
+    return completer.future.timeout(timeout, onTimeout: () {
+      _pendingRequests.remove(id);
+      throw TimeoutException('request $key timed out', timeout);
+    });
+  }
+
+  ///Handle the requests of [key] from native, replacing the former handler
+  VoidCallback addRequestHandler(String key, RequestHandler handler) {
+    assert(key != null && handler != null);
+    _requestHandlers[key] = handler;
+    return () {
+      if (_requestHandlers[key] == handler) {
+        _requestHandlers.remove(key);
+      }
+    };
+  }
+
+  ///Deliver the batches of native streams to the subscriptions listed in them
+  void _addStreamBatchEventListener() {
+    _streamBatchListenerRemover = addEventListener(_streamBatchKey, (key, arguments) {
+      final List<Object> subscribers = arguments["subscribers"] ?? <Object>[];
+      final bool done = arguments["done"] ?? false;
+      final List<Object> values = arguments["values"] ?? <Object>[];
+      for (final Object id in subscribers) {
+        final StreamController<List> controller = _streamSubscriptions[id];
+        if (controller == null) {
+          continue;
+        }
+        if (done) {
+          _streamSubscriptions.remove(id);
+          controller.close();
+        } else {
+          controller.add(values);
+        }
+      }
+      return;
+    });
+  }
+
+  ///Subscribe the native stream [name] for the container [uniqueId],
+  ///the batches are paused while the container is hidden
+  Stream<List> subscribeStream(String name, String uniqueId) {
+    final int id = _nextStreamSubscriptionId++;
+    StreamController<List> controller;
+    controller = StreamController<List>(onListen: () {
+      _streamSubscriptions[id] = controller;
+      nativeRouterApi.sendEventToNative(CommonParams()
+        ..key = _streamSubscribeKey
+        ..arguments = <Object, Object>{"name": name, "id": id, "uniqueId": uniqueId});
+    }, onCancel: () {
+      if (_streamSubscriptions.remove(id) != null) {
+        nativeRouterApi.sendEventToNative(CommonParams()
+          ..key = _streamUnsubscribeKey
+          ..arguments = <Object, Object>{"id": id});
+      }
+    });
+    return controller.stream;
+  }
+
+  void _applyTransitionStep(Map<Object, Object> step) {
+    final String uniqueId = step["uniqueId"];
+    switch (step["op"]) {
+      case "hide":
+        onContainerHide(CommonParams()..uniqueId = uniqueId);
+        break;
+      case "push":
+        final Map<Object, Object> arguments = step["arguments"];
+        push(step["pageName"],
+            uniqueId: uniqueId,
+            arguments: Map<String, dynamic>.from(arguments ?? <String, dynamic>{}),
+            withContainer: true);
+        break;
+      case "show":
+        onContainerShow(CommonParams()..uniqueId = uniqueId);
+        break;
+      case "remove":
+        remove(uniqueId);
+        break;
+      case "release":
+        final container = _findContainerByUniqueId(uniqueId);
+        if (container != null && container != topContainer) {
+          releaseContainerOverlayEntry(container);
+        }
+        break;
+      case "lifecycle":
+        _changeAppLifecycleState(step["lifecycleState"]);
+        break;
+    }
+  }
+
+  ///Setup the prewarm event launched from native,
+  ///which carries the routes configured in FlutterBoostSetupOptions
+  void _addPrewarmRoutesEventListener() {
+    _prewarmRoutesListenerRemover = BoostChannel.instance.addEventListener(_prewarmRoutesKey, (key, arguments) {
+      final List<Object> routes = arguments["routes"] ?? <Object>[];
+      final int budget = arguments["budget"] ?? 0;
+      _prewarmWithinBudget(routes.cast<String>(), Duration(milliseconds: budget));
+      return;
+    });
+  }
+
+  ///Prewarm one route per frame, and stop once [budget] is used up.
+  ///A zero [budget] means no limit. The routes actually built are reported
+  ///back to native, which counts prewarm hits only for them.
+  void _prewarmWithinBudget(List<String> routes, Duration budget) {
+    final stopwatch = Stopwatch()..start();
+    final built = <String>[];
+    void prewarmAt(int index) {
+      if (index >= routes.length || (budget > Duration.zero && stopwatch.elapsed > budget)) {
+        Logger.log('prewarm done, ${stopwatch.elapsedMilliseconds}ms, $index/${routes.length}');
+        BoostChannel.instance.sendEventToNative(_prewarmDoneKey, <String, dynamic>{'routes': built});
+        return;
+      }
+      if (prewarm(routes[index])) {
+        built.add(routes[index]);
+      }
+      SchedulerBinding.instance.addPostFrameCallback((_) => prewarmAt(index + 1));
+      SchedulerBinding.instance.scheduleFrame();
+    }
+
+    prewarmAt(0);
+  }
+
+  ///Build the page of [pageName] offstage and keep it until it is pushed,
+  ///pages not accepted by [FlutterBoostApp.canPrewarm] are skipped.
+  ///Returns whether a prewarmed page of [pageName] is ready.
+  bool prewarm(String pageName) {
+    if (_prewarmedContainers.containsKey(pageName)) {
+      return true;
+    }
+    if (widget.canPrewarm == null ||
+        !widget.canPrewarm(pageName) ||
+        !BoostNavigator.instance.isFlutterPage(pageName)) {
+      return false;
+    }
+    final container = _createContainer(
+        PageInfo(pageName: pageName, arguments: <String, dynamic>{}, withContainer: true));
+    _prewarmedContainers[pageName] = container;
+    insertPrewarmOverlayEntry(container);
+    Logger.log('prewarm, pageName=$pageName');
+    return true;
+  }
+
+  ///Take the prewarmed container of [pageName] for a push with [pageInfo].
+  ///It was built with empty arguments, so a push with arguments drops it.
+  BoostContainer _takePrewarmedContainer(String pageName, PageInfo pageInfo) {
+    final container = _prewarmedContainers.remove(pageName);
+    if (container == null) {
+      return null;
+    }
+    if (pageInfo.arguments != null && pageInfo.arguments.isNotEmpty) {
+      removePrewarmOverlayEntry(container);
+      return null;
+    }
+    container.pageInfo.uniqueId = pageInfo.uniqueId;
+    Logger.log('prewarm hit, pageName=$pageName, uniqueId=${pageInfo.uniqueId}');
+    return container;
+  }
+
   @override
   void dispose() {
     _lifecycleStateListenerRemover.call();
+    _prewarmRoutesListenerRemover?.call();
+    _containerTransitionListenerRemover?.call();
+    _binaryEventListenerRemover?.call();
+    binaryEventChannel.setMessageHandler(null);
+    _eventRequestListenerRemover?.call();
+    _eventResponseListenerRemover?.call();
+    for (final completer in _pendingRequests.values) {
+      completer.completeError(PlatformException(code: 'disposed', message: 'FlutterBoostApp disposed'));
+    }
+    _pendingRequests.clear();
+    _streamBatchListenerRemover?.call();
+    for (final controller in _streamSubscriptions.values) {
+      controller.close();
+    }
+    _streamSubscriptions.clear();
     super.dispose();
   }
 
@@ -287,6 +610,9 @@ class FlutterBoostAppState extends State<FlutterBoostApp> {
 
         //move the overlayEntry which matches this existing container to the top
         refreshOnMoveToTop(existed);
+      } else if (isContainerOverlayEntryReleased(existed)) {
+        //rebuild the pages of a released container
+        refreshOnMoveToTop(existed);
       }
     } else {
       //创建pageInfo
@@ -296,8 +622,8 @@ class FlutterBoostAppState extends State<FlutterBoostApp> {
           arguments: arguments,
           withContainer: withContainer);
       if (withContainer) {
-        //创建contanner BoostContainer
-        final container = _createContainer(pageInfo);
+        //创建contanner BoostContainer，预热过的页面直接使用已经构建好的容器
+        final container = _takePrewarmedContainer(pageName, pageInfo) ?? _createContainer(pageInfo);
         //记录上一个页面
         final previousContainer = topContainer;
         //新创建的 container 缓存起来
@@ -1,5 +1,8 @@
 // Autogenerated from Pigeon (v0.1.23), do not edit directly.
 // See also: https://pub.dev/packages/pigeon
+// The channels use BoostMessageCodec from boost_message_codec.dart instead of
+// StandardMessageCodec, and decode() accepts the decoded objects it returns.
+// Keep both edits when regenerating.
 // ignore_for_file: public_member_api_docs, non_constant_identifier_names, avoid_as, unused_import, unnecessary_parenthesis, prefer_null_aware_operators
 // @dart = 2.8
 import 'dart:async';
@@ -7,6 +10,8 @@ import 'dart:typed_data' show Uint8List, Int32List, Int64List, Float64List;
 
 import 'package:flutter/services.dart';
 
+import 'boost_message_codec.dart';
+
 class CommonParams {
   String pageName;
   String uniqueId;
@@ -25,6 +30,9 @@ class CommonParams {
   }
 
   static CommonParams decode(Object message) {
+    if (message is CommonParams) {
+      return message;
+    }
     final Map<Object, Object> pigeonMap = message as Map<Object, Object>;
     return CommonParams()
       ..pageName = pigeonMap['pageName'] as String
@@ -52,6 +60,9 @@ class StackInfo {
   }
 
   static StackInfo decode(Object message) {
+    if (message is StackInfo) {
+      return message;
+    }
     final Map<Object, Object> pigeonMap = message as Map<Object, Object>;
     return StackInfo()
       ..containers = pigeonMap['containers'] as List<Object>
@@ -77,7 +88,7 @@ abstract class FlutterRouterApi {
   static void setup(FlutterRouterApi api) {
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.pushRoute', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.pushRoute', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -91,7 +102,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.popRoute', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.popRoute', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -105,7 +116,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.removeRoute', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.removeRoute', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -119,7 +130,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onForeground', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onForeground', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -133,7 +144,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onBackground', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onBackground', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -147,7 +158,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onNativeResult', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onNativeResult', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -161,7 +172,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onContainerShow', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onContainerShow', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -175,7 +186,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onContainerHide', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.onContainerHide', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -189,7 +200,7 @@ abstract class FlutterRouterApi {
     }
     {
       const BasicMessageChannel<Object> channel =
-          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.sendEventToFlutter', StandardMessageCodec());
+          BasicMessageChannel<Object>('dev.flutter.pigeon.FlutterRouterApi.sendEventToFlutter', BoostMessageCodec());
       if (api == null) {
         channel.setMessageHandler(null);
       } else {
@@ -206,9 +217,9 @@ abstract class FlutterRouterApi {
 
 class NativeRouterApi {
   Future<void> pushNativeRoute(CommonParams arg) async {
-    final Object encoded = arg.encode();
+    final Object encoded = arg;
     const BasicMessageChannel<Object> channel =
-        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.pushNativeRoute', StandardMessageCodec());
+        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.pushNativeRoute', BoostMessageCodec());
     final Map<Object, Object> replyMap = await channel.send(encoded) as Map<Object, Object>;
     if (replyMap == null) {
       throw PlatformException(
@@ -229,9 +240,9 @@ class NativeRouterApi {
   }
 
   Future<void> pushFlutterRoute(CommonParams arg) async {
-    final Object encoded = arg.encode();
+    final Object encoded = arg;
     const BasicMessageChannel<Object> channel =
-        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.pushFlutterRoute', StandardMessageCodec());
+        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.pushFlutterRoute', BoostMessageCodec());
     final Map<Object, Object> replyMap = await channel.send(encoded) as Map<Object, Object>;
     if (replyMap == null) {
       throw PlatformException(
@@ -252,9 +263,9 @@ class NativeRouterApi {
   }
 
   Future<void> popRoute(CommonParams arg) async {
-    final Object encoded = arg.encode();
+    final Object encoded = arg;
     const BasicMessageChannel<Object> channel =
-        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.popRoute', StandardMessageCodec());
+        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.popRoute', BoostMessageCodec());
     final Map<Object, Object> replyMap = await channel.send(encoded) as Map<Object, Object>;
     if (replyMap == null) {
       throw PlatformException(
@@ -276,7 +287,7 @@ class NativeRouterApi {
 
   Future<StackInfo> getStackFromHost() async {
     const BasicMessageChannel<Object> channel =
-        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.getStackFromHost', StandardMessageCodec());
+        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.getStackFromHost', BoostMessageCodec());
     final Map<Object, Object> replyMap = await channel.send(null) as Map<Object, Object>;
     if (replyMap == null) {
       throw PlatformException(
@@ -297,9 +308,9 @@ class NativeRouterApi {
   }
 
   Future<void> saveStackToHost(StackInfo arg) async {
-    final Object encoded = arg.encode();
+    final Object encoded = arg;
     const BasicMessageChannel<Object> channel =
-        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.saveStackToHost', StandardMessageCodec());
+        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.saveStackToHost', BoostMessageCodec());
     final Map<Object, Object> replyMap = await channel.send(encoded) as Map<Object, Object>;
     if (replyMap == null) {
       throw PlatformException(
@@ -320,9 +331,9 @@ class NativeRouterApi {
   }
 
   Future<void> sendEventToNative(CommonParams arg) async {
-    final Object encoded = arg.encode();
+    final Object encoded = arg;
     const BasicMessageChannel<Object> channel =
-        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.sendEventToNative', StandardMessageCodec());
+        BasicMessageChannel<Object>('dev.flutter.pigeon.NativeRouterApi.sendEventToNative', BoostMessageCodec());
     final Map<Object, Object> replyMap = await channel.send(encoded) as Map<Object, Object>;
     if (replyMap == null) {
       throw PlatformException(
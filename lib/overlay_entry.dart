@@ -10,6 +10,10 @@ import 'boost_container.dart';
 final GlobalKey<OverlayState> overlayKey = GlobalKey<OverlayState>();
 // OverlayEntry(所有页面) 的栈？
 List<_ContainerOverlayEntry> _lastEntries = <_ContainerOverlayEntry>[];
+// 原生超过 maxLiveContainers 后释放的容器，OverlayEntry 已经移除，再次显示时重建
+final Set<String> _releasedContainerIds = <String>{};
+// 预热页面的 OverlayEntry，位于所有页面之下，离屏构建，真正打开时直接移到顶部
+final Map<BoostContainer, _ContainerOverlayEntry> _prewarmEntries = <BoostContainer, _ContainerOverlayEntry>{};
 
 ///The Entry refresh mode,which indicates different situation
 enum BoostSpecificEntryRefreshMode {
@@ -42,35 +46,49 @@ void refreshSpecificOverlayEntries(BoostContainer container, BoostSpecificEntryR
   //deal with different situation
   switch (mode) {
     case BoostSpecificEntryRefreshMode.add: // 添加
-      //创建一个 OverlayEntry
-      final entry = _ContainerOverlayEntry(container);
+      //预热过的容器沿用离屏构建好的 OverlayEntry，否则创建一个
+      final prewarmedEntry = _prewarmEntries.remove(container);
+      final entry = prewarmedEntry ?? _ContainerOverlayEntry(container);
       _lastEntries.add(entry);
+      if (prewarmedEntry != null) {
+        //同一帧内移除再插入，页面的 State 不会重建
+        prewarmedEntry.remove();
+        prewarmedEntry.reveal();
+      }
       //添加一层 OverlayEntry
       overlayState.insert(entry);
       break;
     case BoostSpecificEntryRefreshMode.remove: // 移除
+      //released containers have no entry any more
+      _releasedContainerIds.remove(container.pageInfo.uniqueId);
       if (_lastEntries.isNotEmpty) {
         //Find the entry matching the container
         final entryToRemove = _lastEntries.singleWhere((element) {
           return element.containerUniqueId == container.pageInfo.uniqueId;
-        });
+        }, orElse: () => null);
 
         //remove from the list and overlay
-        _lastEntries.remove(entryToRemove);
-        entryToRemove.remove();
+        if (entryToRemove != null) {
+          _lastEntries.remove(entryToRemove);
+          entryToRemove.remove();
+        }
       }
       break;
     case BoostSpecificEntryRefreshMode.moveToTop: // 移到顶部，全栈唯一？？
-      // 找到已经存在的 OverlayEntry
+      // 找到已经存在的 OverlayEntry，被释放的容器重新创建一个
+      _releasedContainerIds.remove(container.pageInfo.uniqueId);
       final existingEntry = _lastEntries.singleWhere((element) {
-        return element.containerUniqueId == container.pageInfo.uniqueId;
-      });
+            return element.containerUniqueId == container.pageInfo.uniqueId;
+          }, orElse: () => null) ??
+          _ContainerOverlayEntry(container);
       //删除并移动到顶部
       //remove the entry from list and overlay
       //and insert it to list'top and overlay 's top
       _lastEntries.remove(existingEntry);
       _lastEntries.add(existingEntry);
-      existingEntry.remove();
+      if (existingEntry.mounted) {
+        existingEntry.remove();
+      }
       overlayState.insert(existingEntry);
       break;
   }
@@ -99,6 +117,7 @@ void refreshAllOverlayEntries(List<BoostContainer> containers) {
       entry.remove(); //移除所有  OverlayEntry
     }
   }
+  _releasedContainerIds.clear();
 
   _lastEntries =
       containers.map<_ContainerOverlayEntry>((container) => _ContainerOverlayEntry(container)).toList(growable: true);
@@ -120,14 +139,75 @@ void refreshAllOverlayEntries(List<BoostContainer> containers) {
   }
 }
 
-//每个 _ContainerOverlayEntry 都包含一个 BoostContainerWidget
+///Remove the entry of a background [container] to free its pages,
+///the pages are rebuilt from their [PageInfo] when it moves to top again
+void releaseContainerOverlayEntry(BoostContainer container) {
+  final entry = _lastEntries.singleWhere((element) {
+    return element.containerUniqueId == container.pageInfo.uniqueId;
+  }, orElse: () => null);
+  if (entry == null) {
+    return;
+  }
+  _lastEntries.remove(entry);
+  entry.remove();
+  _releasedContainerIds.add(container.pageInfo.uniqueId);
+}
+
+///Whether the entry of [container] has been released
+bool isContainerOverlayEntryReleased(BoostContainer container) {
+  return _releasedContainerIds.contains(container.pageInfo.uniqueId);
+}
+
+///Build the [container] offstage below all of the container entries.
+///Pushing the same [container] later reveals the already built entry
+///instead of building the page again. Only build and layout are done
+///ahead, an offstage page is never painted.
+void insertPrewarmOverlayEntry(BoostContainer container) {
+  final overlayState = overlayKey.currentState;
+  if (overlayState == null) {
+    return;
+  }
+
+  final entry = _ContainerOverlayEntry(container, prewarming: true);
+  _prewarmEntries[container] = entry;
+  overlayState.insert(entry, below: _lastEntries.isNotEmpty ? _lastEntries.first : null);
+}
+
+///Remove the offstage entry of a prewarmed [container]
+void removePrewarmOverlayEntry(BoostContainer container) {
+  final entry = _prewarmEntries.remove(container);
+  entry?.remove();
+}
+
+//每个 _ContainerOverlayEntry 都包含一个 BoostContainerWidget，
+//预热时不可见、不响应事件、不跑动画，显示后 widget 树的结构不变，页面不会重建
 class _ContainerOverlayEntry extends OverlayEntry {
-  _ContainerOverlayEntry(BoostContainer container)
-      : containerUniqueId = container.pageInfo.uniqueId,
-        super(builder: (ctx) => BoostContainerWidget(container: container), opaque: true, maintainState: true);
+  _ContainerOverlayEntry(BoostContainer container, {bool prewarming = false})
+      : this._(container, ValueNotifier<bool>(prewarming));
+
+  _ContainerOverlayEntry._(this.container, ValueNotifier<bool> prewarming)
+      : _prewarming = prewarming,
+        super(
+            builder: (ctx) => ValueListenableBuilder<bool>(
+                valueListenable: prewarming,
+                builder: (ctx, offstage, child) =>
+                    Offstage(offstage: offstage, child: TickerMode(enabled: !offstage, child: child)),
+                child: BoostContainerWidget(container: container)),
+            opaque: !prewarming.value,
+            maintainState: true);
+
+  final BoostContainer container;
+
+  final ValueNotifier<bool> _prewarming;
 
   ///This overlay's id,which is the same as the it's related container
-  final String containerUniqueId;
+  String get containerUniqueId => container.pageInfo.uniqueId;
+
+  ///Show a prewarmed entry as a normal container entry
+  void reveal() {
+    _prewarming.value = false;
+    opaque = true;
+  }
 
   @override
   String toString() {
@@ -0,0 +1,81 @@
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:flutter_boost/flutter_boost.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'boost_test_harness.dart';
+
+const String _binaryEventKey = 'binary_event_key';
+
+ByteData _bytes(List<int> values) => Uint8List.fromList(values).buffer.asByteData();
+
+List<int> _toList(ByteData data) =>
+    data.buffer.asUint8List(data.offsetInBytes, data.lengthInBytes).toList();
+
+///Delivers a payload on the binary event channel, like the engine does
+Future<void> _sendPayloadFromNative(ByteData payload) {
+  return ServicesBinding.instance.defaultBinaryMessenger.handlePlatformMessage(
+      FlutterBoostAppState.binaryEventChannel.name, payload, (ByteData reply) {});
+}
+
+void main() {
+  BoostTestBinding.ensureInitialized();
+  final native = FakeNative();
+
+  setUp(native.install);
+  tearDown(native.uninstall);
+
+  group('binary event', () {
+    testWidgets('sendBinaryEventToNative sends the key and the payload', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+
+      state.sendBinaryEventToNative('image', _bytes(<int>[1, 2, 3]));
+      await tester.pump();
+
+      final keys = native.eventsOf(_binaryEventKey);
+      expect(keys.length, 1);
+      expect(keys.single.arguments['key'], 'image');
+      expect(native.binaryPayloads.map(_toList), <List<int>>[
+        <int>[1, 2, 3]
+      ]);
+    });
+
+    testWidgets('pairs payloads from native with their keys in order', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final received = <String>[];
+      final payloads = <List<int>>[];
+      for (final key in <String>['a', 'b']) {
+        state.addEventListener(key, (String key, Map arguments) async {
+          received.add(key);
+          payloads.add(_toList(arguments['payload']));
+        });
+      }
+
+      sendEventFromNative(state, _binaryEventKey, <Object, Object>{'key': 'a'});
+      sendEventFromNative(state, _binaryEventKey, <Object, Object>{'key': 'b'});
+      await _sendPayloadFromNative(_bytes(<int>[1]));
+      await _sendPayloadFromNative(_bytes(<int>[2, 2]));
+
+      expect(received, <String>['a', 'b']);
+      expect(payloads, <List<int>>[
+        <int>[1],
+        <int>[2, 2]
+      ]);
+    });
+
+    testWidgets('drops a payload without key', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      var called = false;
+      state.addEventListener('a', (String key, Map arguments) async {
+        called = true;
+      });
+
+      await _sendPayloadFromNative(_bytes(<int>[1]));
+      sendEventFromNative(state, _binaryEventKey, <Object, Object>{'key': 'a'});
+
+      //没有 payload 的 key 会等下一个 payload，不会立即分发
+      expect(called, isFalse);
+    });
+  });
+}
@@ -0,0 +1,94 @@
+import 'dart:typed_data';
+
+import 'package:flutter/material.dart';
+import 'package:flutter/services.dart';
+import 'package:flutter_boost/boost_message_codec.dart';
+import 'package:flutter_boost/flutter_boost.dart';
+import 'package:flutter_boost/messages.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+///FlutterBoostApp asserts that BoostFlutterBinding is initialized
+class BoostTestBinding extends AutomatedTestWidgetsFlutterBinding
+    with BoostFlutterBinding {
+  static void ensureInitialized() {
+    if (BoostFlutterBinding.instance == null) {
+      BoostTestBinding();
+    }
+  }
+}
+
+///Stands in for the native side: answers the NativeRouterApi channels,
+///and records the events and binary payloads sent to native
+class FakeNative {
+  static const List<String> _methods = <String>[
+    'pushNativeRoute',
+    'pushFlutterRoute',
+    'popRoute',
+    'getStackFromHost',
+    'saveStackToHost',
+    'sendEventToNative',
+  ];
+
+  final List<CommonParams> events = <CommonParams>[];
+  final List<ByteData> binaryPayloads = <ByteData>[];
+
+  void install() {
+    for (final method in _methods) {
+      BasicMessageChannel<Object>(
+              'dev.flutter.pigeon.NativeRouterApi.$method', const BoostMessageCodec())
+          .setMockMessageHandler((Object message) async {
+        if (method == 'sendEventToNative') {
+          events.add(CommonParams.decode(message));
+        } else if (method == 'getStackFromHost') {
+          return <Object, Object>{'result': StackInfo()};
+        }
+        return <Object, Object>{};
+      });
+    }
+    FlutterBoostAppState.binaryEventChannel
+        .setMockMessageHandler((ByteData payload) async {
+      binaryPayloads.add(payload);
+      return null;
+    });
+  }
+
+  void uninstall() {
+    for (final method in _methods) {
+      BasicMessageChannel<Object>(
+              'dev.flutter.pigeon.NativeRouterApi.$method', const BoostMessageCodec())
+          .setMockMessageHandler(null);
+    }
+    FlutterBoostAppState.binaryEventChannel.setMockMessageHandler(null);
+    events.clear();
+    binaryPayloads.clear();
+  }
+
+  ///The events of [key] sent to native so far, in order
+  List<CommonParams> eventsOf(String key) =>
+      events.where((event) => event.key == key).toList();
+}
+
+Route<dynamic> testRouteFactory(RouteSettings settings, String uniqueId) {
+  return PageRouteBuilder<dynamic>(
+      settings: settings,
+      transitionDuration: Duration.zero,
+      pageBuilder: (_, __, ___) => Text(settings.name));
+}
+
+///Pumps a FlutterBoostApp showing '/' and returns its state once it has
+///sent app_ready to native.
+///BoostChannel.instance keeps the state of the first FlutterBoostApp it
+///finds, so tests talk to the returned state directly
+Future<FlutterBoostAppState> pumpBoostApp(WidgetTester tester) async {
+  await tester.pumpWidget(FlutterBoostApp(testRouteFactory));
+  await tester.pump();
+  return tester.state<FlutterBoostAppState>(find.byType(FlutterBoostApp));
+}
+
+///Delivers an event from native to [state], like FlutterRouterApi does
+void sendEventFromNative(
+    FlutterBoostAppState state, String key, Map<Object, Object> arguments) {
+  state.onReceiveEventFromNative(CommonParams()
+    ..key = key
+    ..arguments = arguments);
+}
@@ -0,0 +1,97 @@
+import 'package:flutter_boost/flutter_boost.dart';
+import 'package:flutter_boost/overlay_entry.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'boost_test_harness.dart';
+
+const String _transitionKey = 'container_transition_key';
+
+List<String> _containerIds(FlutterBoostAppState state) =>
+    state.containers.map((container) => container.pageInfo.uniqueId).toList();
+
+void main() {
+  BoostTestBinding.ensureInitialized();
+  final native = FakeNative();
+
+  setUp(native.install);
+  tearDown(native.uninstall);
+
+  group('container transition', () {
+    testWidgets('applies the steps of a push in one event', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final initial = state.topContainer.pageInfo.uniqueId;
+
+      sendEventFromNative(state, _transitionKey, <Object, Object>{
+        'steps': <Object>[
+          <Object, Object>{'op': 'hide', 'uniqueId': initial},
+          <Object, Object>{
+            'op': 'push',
+            'uniqueId': 'page_b_id',
+            'pageName': 'page_b',
+            'arguments': <Object, Object>{'from': 'native'},
+          },
+          <Object, Object>{'op': 'show', 'uniqueId': 'page_b_id'},
+        ],
+      });
+
+      //所有步骤在同一个事件中完成，不需要等中间帧
+      expect(_containerIds(state), <String>[initial, 'page_b_id']);
+      expect(state.topContainer.pageInfo.pageName, 'page_b');
+      expect(state.topContainer.pageInfo.arguments, <String, dynamic>{'from': 'native'});
+
+      await tester.pumpAndSettle();
+      expect(find.text('page_b'), findsOneWidget);
+      //onContainerShow 延迟 1 秒处理 native 页面的结果
+      await tester.pump(const Duration(seconds: 1));
+    });
+
+    testWidgets('applies the steps of a pop in one event', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final initial = state.topContainer.pageInfo.uniqueId;
+      sendEventFromNative(state, _transitionKey, <Object, Object>{
+        'steps': <Object>[
+          <Object, Object>{'op': 'push', 'uniqueId': 'page_b_id', 'pageName': 'page_b'},
+        ],
+      });
+      await tester.pumpAndSettle();
+
+      sendEventFromNative(state, _transitionKey, <Object, Object>{
+        'steps': <Object>[
+          <Object, Object>{'op': 'hide', 'uniqueId': 'page_b_id'},
+          <Object, Object>{'op': 'remove', 'uniqueId': 'page_b_id'},
+          <Object, Object>{'op': 'show', 'uniqueId': initial},
+        ],
+      });
+
+      expect(_containerIds(state), <String>[initial]);
+      await tester.pumpAndSettle();
+      expect(find.text('page_b'), findsNothing);
+      await tester.pump(const Duration(seconds: 1));
+    });
+
+    testWidgets('releases only containers below the top', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final initial = state.containers.first;
+      sendEventFromNative(state, _transitionKey, <Object, Object>{
+        'steps': <Object>[
+          <Object, Object>{'op': 'push', 'uniqueId': 'page_b_id', 'pageName': 'page_b'},
+          <Object, Object>{'op': 'release', 'uniqueId': initial.pageInfo.uniqueId},
+          <Object, Object>{'op': 'release', 'uniqueId': 'page_b_id'},
+        ],
+      });
+      await tester.pumpAndSettle();
+
+      expect(isContainerOverlayEntryReleased(initial), isTrue);
+      expect(isContainerOverlayEntryReleased(state.topContainer), isFalse);
+    });
+
+    testWidgets('ignores an event without steps', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final before = _containerIds(state);
+
+      sendEventFromNative(state, _transitionKey, <Object, Object>{});
+
+      expect(_containerIds(state), before);
+    });
+  });
+}
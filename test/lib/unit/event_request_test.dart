@@ -0,0 +1,141 @@
+import 'dart:async';
+
+import 'package:flutter/services.dart';
+import 'package:flutter_boost/flutter_boost.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'boost_test_harness.dart';
+
+const String _requestKey = 'event_request_key';
+const String _responseKey = 'event_response_key';
+
+void main() {
+  BoostTestBinding.ensureInitialized();
+  final native = FakeNative();
+
+  setUp(native.install);
+  tearDown(native.uninstall);
+
+  group('request to native', () {
+    testWidgets('completes with the result of the response', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+
+      final future = state.request('user', <Object, Object>{'id': 1});
+      await tester.pump();
+      final sent = native.eventsOf(_requestKey).single.arguments;
+      expect(sent['key'], 'user');
+      expect(sent['arguments'], <Object, Object>{'id': 1});
+
+      sendEventFromNative(state, _responseKey, <Object, Object>{
+        'id': sent['id'],
+        'result': <Object, Object>{'name': 'boost'},
+      });
+      expect(await future, <Object, Object>{'name': 'boost'});
+    });
+
+    testWidgets('fails with the error of the response', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+
+      final future = state.request('user', null);
+      await tester.pump();
+      final id = native.eventsOf(_requestKey).single.arguments['id'];
+      sendEventFromNative(state, _responseKey, <Object, Object>{'id': id, 'error': 'no_handler'});
+
+      await expectLater(
+          future, throwsA(isA<PlatformException>().having((e) => e.code, 'code', 'no_handler')));
+    });
+
+    testWidgets('times out and ignores a late response', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+
+      Object error;
+      state.request('slow', null, timeout: const Duration(milliseconds: 100)).then((_) {}, onError: (Object e) {
+        error = e;
+      });
+      await tester.pump(const Duration(milliseconds: 100));
+      expect(error, isA<TimeoutException>());
+
+      final id = native.eventsOf(_requestKey).single.arguments['id'];
+      //超时后到达的响应直接丢弃
+      sendEventFromNative(state, _responseKey, <Object, Object>{'id': id, 'result': <Object, Object>{}});
+    });
+
+    testWidgets('uses a new id for every request', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+
+      final first = state.request('a', null);
+      final second = state.request('a', null);
+      await tester.pump();
+      final ids = native.eventsOf(_requestKey).map((event) => event.arguments['id']).toList();
+      expect(ids.toSet().length, 2);
+
+      sendEventFromNative(state, _responseKey, <Object, Object>{'id': ids[1], 'result': <Object, Object>{'n': 2}});
+      sendEventFromNative(state, _responseKey, <Object, Object>{'id': ids[0], 'result': <Object, Object>{'n': 1}});
+      expect(await first, <Object, Object>{'n': 1});
+      expect(await second, <Object, Object>{'n': 2});
+    });
+  });
+
+  group('request from native', () {
+    Map<Object, Object> responseOf(Object id) =>
+        native.eventsOf(_responseKey).singleWhere((event) => event.arguments['id'] == id).arguments;
+
+    testWidgets('responds with the result of the handler', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      state.addRequestHandler('sum', (String key, Map arguments) async {
+        return <Object, Object>{'sum': arguments['a'] + arguments['b']};
+      });
+
+      sendEventFromNative(state, _requestKey, <Object, Object>{
+        'key': 'sum',
+        'id': 7,
+        'arguments': <Object, Object>{'a': 1, 'b': 2},
+      });
+      await tester.pump();
+
+      expect(responseOf(7)['result'], <Object, Object>{'sum': 3});
+      expect(responseOf(7)['error'], isNull);
+    });
+
+    testWidgets('responds with an error without handler', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+
+      sendEventFromNative(state, _requestKey, <Object, Object>{'key': 'missing', 'id': 1});
+      await tester.pump();
+
+      expect(responseOf(1)['error'], 'no_handler');
+    });
+
+    testWidgets('responds with the error thrown by the handler', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      state.addRequestHandler('fail', (String key, Map arguments) async {
+        throw StateError('broken');
+      });
+
+      sendEventFromNative(state, _requestKey, <Object, Object>{'key': 'fail', 'id': 2});
+      await tester.pump();
+
+      expect(responseOf(2)['error'], contains('broken'));
+    });
+
+    testWidgets('remover of a replaced handler keeps the new one', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final removeOld = state.addRequestHandler('k', (String key, Map arguments) async {
+        return <Object, Object>{'handler': 'old'};
+      });
+      final removeNew = state.addRequestHandler('k', (String key, Map arguments) async {
+        return <Object, Object>{'handler': 'new'};
+      });
+
+      removeOld();
+      sendEventFromNative(state, _requestKey, <Object, Object>{'key': 'k', 'id': 1});
+      await tester.pump();
+      expect(responseOf(1)['result'], <Object, Object>{'handler': 'new'});
+
+      removeNew();
+      sendEventFromNative(state, _requestKey, <Object, Object>{'key': 'k', 'id': 2});
+      await tester.pump();
+      expect(responseOf(2)['error'], 'no_handler');
+    });
+  });
+}
@@ -0,0 +1,102 @@
+import 'package:flutter_boost/flutter_boost.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'boost_test_harness.dart';
+
+const String _subscribeKey = 'stream_subscribe_key';
+const String _unsubscribeKey = 'stream_unsubscribe_key';
+const String _batchKey = 'stream_batch_key';
+
+void main() {
+  BoostTestBinding.ensureInitialized();
+  final native = FakeNative();
+
+  setUp(native.install);
+  tearDown(native.uninstall);
+
+  group('subscribeStream', () {
+    testWidgets('subscribes on listen and unsubscribes on cancel', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+
+      final stream = state.subscribeStream('location', 'page_id');
+      await tester.pump();
+      //没有 listen 之前不会订阅
+      expect(native.eventsOf(_subscribeKey), isEmpty);
+
+      final subscription = stream.listen((List batch) {});
+      await tester.pump();
+      final subscribe = native.eventsOf(_subscribeKey).single.arguments;
+      expect(subscribe['name'], 'location');
+      expect(subscribe['uniqueId'], 'page_id');
+
+      await subscription.cancel();
+      await tester.pump();
+      expect(native.eventsOf(_unsubscribeKey).single.arguments['id'], subscribe['id']);
+    });
+
+    testWidgets('delivers batches to the listed subscribers', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final first = <List>[];
+      final second = <List>[];
+      final subscriptionA = state.subscribeStream('location', 'page_a').listen(first.add);
+      final subscriptionB = state.subscribeStream('location', 'page_b').listen(second.add);
+      await tester.pump();
+      final ids = native.eventsOf(_subscribeKey).map((event) => event.arguments['id']).toList();
+
+      sendEventFromNative(state, _batchKey, <Object, Object>{
+        'subscribers': <Object>[ids[0], ids[1]],
+        'values': <Object>[1, 2],
+      });
+      //page_b 隐藏时 native 不会把它列在 subscribers 中
+      sendEventFromNative(state, _batchKey, <Object, Object>{
+        'subscribers': <Object>[ids[0]],
+        'values': <Object>[3],
+      });
+      await tester.pump();
+
+      expect(first, <List>[
+        <Object>[1, 2],
+        <Object>[3]
+      ]);
+      expect(second, <List>[
+        <Object>[1, 2]
+      ]);
+      await subscriptionA.cancel();
+      await subscriptionB.cancel();
+    });
+
+    testWidgets('closes the stream when native is done', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      var done = false;
+      state.subscribeStream('location', 'page_id').listen((List batch) {}, onDone: () => done = true);
+      await tester.pump();
+      final id = native.eventsOf(_subscribeKey).single.arguments['id'];
+
+      sendEventFromNative(state, _batchKey, <Object, Object>{
+        'subscribers': <Object>[id],
+        'done': true,
+      });
+      await tester.pump();
+
+      expect(done, isTrue);
+      //native 关闭的订阅不需要再取消
+      expect(native.eventsOf(_unsubscribeKey), isEmpty);
+    });
+
+    testWidgets('ignores batches of unknown subscribers', (WidgetTester tester) async {
+      final state = await pumpBoostApp(tester);
+      final batches = <List>[];
+      final subscription = state.subscribeStream('location', 'page_id').listen(batches.add);
+      await tester.pump();
+
+      sendEventFromNative(state, _batchKey, <Object, Object>{
+        'subscribers': <Object>[-1],
+        'values': <Object>[1],
+      });
+      await tester.pump();
+
+      expect(batches, isEmpty);
+      await subscription.cancel();
+    });
+  });
+}